@@ -0,0 +1,285 @@
+import java.io.FileNotFoundException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/** The Benchmark Class
+ *  Plays a headless game between engines of one kind and measures how long each move takes and how much memory
+ *  the search allocates
+ *  Usage: java Benchmark [rounds] [players] [greedy|search|paranoid|maxn|brs|mcts] [time limit in ms]
+ *         java Benchmark -ordering [depth]
+ *         java Benchmark -evaluators [depth]
+ *         java Benchmark -ponder [rounds] [players] [greedy|search|paranoid|maxn|brs|mcts] [time limit in ms]
+ */
+
+public class Benchmark {
+
+	public static final int DEFAULT_ROUNDS = 40;
+	public static final String DEFAULT_ENGINE = "greedy";
+	// Time each turn takes in the pondering game in milliseconds
+	public static final long DEFAULT_PONDER_TIME_LIMIT = 500;
+	
+	// The seatings and rounds of the greedy games the move ordering suite's positions are taken from
+	private static final String[] SUITE_SEATINGS = { "1,4", "1,3,5", "1,2,3,4,5,6" };
+	private static final int[] SUITE_ROUNDS = { 2, 10, 20, 30 };
+	
+	/** Creates an engine by name
+	 *  Precondition: name is "greedy", "mcts" or one of SearchEngine.MODE_NAMES
+	 *  @param name the kind of engine
+	 *  @param player the player the engine moves for
+	 *  @return the new engine
+	 *  @throws IllegalArgumentException if the name is not recognised
+	 */
+	public static Engine createEngine(String name, int player) {
+		return createEngine(name, player, 0);
+	}
+	
+	/** Creates an engine by name with a time limit for each move
+	 *  Precondition: name is "greedy", "mcts" or one of SearchEngine.MODE_NAMES, and timeLimit >= 0
+	 *  @param name the kind of engine
+	 *  @param player the player the engine moves for
+	 *  @param timeLimit the time a search engine may take for each move in milliseconds, or 0 to search
+	 *  SearchEngine.DEFAULT_MAX_DEPTH moves ahead (or play MctsEngine.DEFAULT_PLAYOUTS playouts)
+	 *  @return the new engine
+	 *  @throws IllegalArgumentException if the name is not recognised
+	 */
+	public static Engine createEngine(String name, int player, long timeLimit) {
+		if (name.equals("greedy"))
+			return new Algorithm(player);
+		if (name.equals("mcts"))
+			return new MctsEngine(player, Runtime.getRuntime().availableProcessors(), timeLimit, 
+					timeLimit > 0 ? 0 : MctsEngine.DEFAULT_PLAYOUTS);
+		if (timeLimit > 0)
+			return new SearchEngine(player, SearchEngine.getMode(name), SearchEngine.MAX_DEPTH, timeLimit);
+		return new SearchEngine(player, SearchEngine.getMode(name));
+	}
+
+	/** Plays a number of rounds of a game from the setup in BoardMap and prints the time and allocation per move
+	 *  Precondition: players holds valid player numbers and the JVM supports thread allocation counting
+	 *  Postcondition: the results have been printed
+	 *  @param rounds the number of times each player moves
+	 *  @param players the players in turn order
+	 *  @param engine the kind of engine every player uses
+	 *  @param timeLimit the time a search engine may take for each move in milliseconds, or 0 for none
+	 *  @throws FileNotFoundException if BoardMap does not exist
+	 */
+	public static void run(int rounds, int[] players, String engine, long timeLimit) throws FileNotFoundException {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+
+		Board board = Perft.loadPosition(players, null);
+		Engine[] engines = new Engine[Board.NUM_PLAYERS + 1];
+		for (int player : players)
+			engines[player] = createEngine(engine, player, timeLimit);
+
+		int moves = 0;
+		long time = 0, allocated = 0, longest = 0;
+		for (int round = 0; round < rounds; round++) {
+			for (int player : players) {
+				long startBytes = threads.getThreadAllocatedBytes(threadId);
+				long start = System.nanoTime();
+				int[] move = engines[player].nextMove(board);
+				long moveTime = System.nanoTime() - start;
+				time += moveTime;
+				longest = Math.max(longest, moveTime);
+				allocated += threads.getThreadAllocatedBytes(threadId) - startBytes;
+				moves++;
+				if (move != null) {
+					board.move(move[0], move[1], move[2], move[3]);
+					for (int other : players)
+						engines[other].movePlayed(move[0], move[1], move[2], move[3]);
+				}
+			}
+		}
+
+		System.out.println(moves + " moves in " + time / 1000000 + " ms: " + time / 1000 / moves + " us/move (longest " +
+				longest / 1000 + " us), " + allocated / moves + " bytes allocated/move, " + 
+				(long)(allocated / (time / 1e9) / (1 << 20)) + " MB/sec");
+	}
+
+	/** Builds a fixed suite of positions to search: the positions after a number of rounds of greedy games
+	 *  Precondition: BoardMap exists
+	 *  @return the positions, each with the first player of its seating to move
+	 *  @throws FileNotFoundException if BoardMap does not exist
+	 */
+	public static Board[] createSuite() throws FileNotFoundException {
+		Board[] suite = new Board[SUITE_SEATINGS.length * SUITE_ROUNDS.length];
+		int count = 0;
+		for (String seating : SUITE_SEATINGS) {
+			int[] players = Perft.parsePlayers(seating);
+			Board board = Perft.loadPosition(players, null);
+			Engine[] engines = new Engine[Board.NUM_PLAYERS + 1];
+			for (int player : players)
+				engines[player] = new Algorithm(player);
+			for (int round = 0; round < SUITE_ROUNDS[SUITE_ROUNDS.length - 1]; round++) {
+				for (int player : players) {
+					int[] move = engines[player].nextMove(board);
+					if (move != null)
+						board.move(move[0], move[1], move[2], move[3]);
+				}
+				if (Arrays.binarySearch(SUITE_ROUNDS, round + 1) >= 0) {
+					suite[count] = new Board(board);
+					suite[count++].setSideToMove(players[0]);
+				}
+			}
+		}
+		return suite;
+	}
+
+	/** Searches every position of the suite in every SearchEngine mode, with the move ordering turned off (only
+	 *  the transposition table move first) and then on, and prints the nodes each took
+	 *  Precondition: depth >= 1
+	 *  Postcondition: the results have been printed
+	 *  @param depth the number of moves to search ahead
+	 *  @throws FileNotFoundException if BoardMap does not exist
+	 */
+	public static void runOrdering(int depth) throws FileNotFoundException {
+		Board[] suite = createSuite();
+		String[] lines = new String[SearchEngine.MODE_NAMES.length];
+		for (int mode = 0; mode < SearchEngine.MODE_NAMES.length; mode++) {
+			long[] nodes = new long[2];
+			long[] time = new long[2];
+			int sameMoves = 0;
+			for (Board position : suite) {
+				int[][] moves = new int[2][];
+				for (int ordering = 0; ordering < 2; ordering++) {
+					SearchEngine engine = new SearchEngine(position.getSideToMove(), mode, depth);
+					engine.setMoveOrdering(ordering == 1);
+					long start = System.nanoTime();
+					moves[ordering] = engine.nextMove(position);
+					time[ordering] += System.nanoTime() - start;
+					nodes[ordering] += engine.getNodes();
+				}
+				if (Arrays.equals(moves[0], moves[1]))
+					sameMoves++;
+			}
+			lines[mode] = SearchEngine.MODE_NAMES[mode] + ": " + nodes[0] + " nodes in " + time[0] / 1000000 + 
+					" ms unordered, " + nodes[1] + " nodes in " + time[1] / 1000000 + " ms ordered (" + 
+					(100 - nodes[1] * 100 / Math.max(nodes[0], 1)) + "% fewer), same move in " + sameMoves + " of " +
+					suite.length + " positions";
+		}
+		System.out.println("Depth " + depth + ", " + suite.length + " positions:");
+		for (String line : lines)
+			System.out.println(line);
+	}
+
+	/** Searches every position of the suite in every SearchEngine mode with each of SearchEngine.EVALUATOR_NAMES,
+	 *  and prints the nodes and time each took
+	 *  Precondition: depth >= 1
+	 *  Postcondition: the results have been printed
+	 *  @param depth the number of moves to search ahead
+	 *  @throws FileNotFoundException if BoardMap does not exist
+	 */
+	public static void runEvaluators(int depth) throws FileNotFoundException {
+		Board[] suite = createSuite();
+		StringBuilder lines = new StringBuilder();
+		for (int mode = 0; mode < SearchEngine.MODE_NAMES.length; mode++) {
+			lines.append(SearchEngine.MODE_NAMES[mode]).append(":");
+			for (String name : SearchEngine.EVALUATOR_NAMES) {
+				long nodes = 0, time = 0;
+				for (Board position : suite) {
+					SearchEngine engine = new SearchEngine(position.getSideToMove(), mode, depth);
+					engine.setEvaluator(SearchEngine.createEvaluator(name));
+					long start = System.nanoTime();
+					engine.nextMove(position);
+					time += System.nanoTime() - start;
+					nodes += engine.getNodes();
+				}
+				lines.append(" ").append(name).append(" ").append(nodes).append(" nodes in ").append(time / 1000000)
+						.append(" ms (").append((long)(nodes / (time / 1e9))).append(" nodes/sec)");
+			}
+			lines.append("\n");
+		}
+		System.out.println("Depth " + depth + ", " + suite.length + " positions:");
+		System.out.print(lines);
+	}
+
+	/** Plays a game where the first player searches in best-reply mode and the others use another engine, with
+	 *  every turn taking the full time limit as it would against the server. The game is played without and then
+	 *  with the first player pondering during the other turns, and the depth its searches reach in each is printed
+	 *  Precondition: players holds at least two valid player numbers and timeLimit >= 1
+	 *  Postcondition: the results have been printed
+	 *  @param rounds the number of times each player moves
+	 *  @param players the players in turn order
+	 *  @param engine the kind of engine the other players use
+	 *  @param timeLimit the time each turn takes in milliseconds
+	 *  @throws FileNotFoundException if BoardMap does not exist
+	 *  @throws InterruptedException if the thread is interrupted while waiting out a turn
+	 */
+	public static void runPonder(int rounds, int[] players, String engine, long timeLimit) 
+			throws FileNotFoundException, InterruptedException {
+		int us = players[0];
+		for (int pondering = 0; pondering < 2; pondering++) {
+			Board board = Perft.loadPosition(players, null);
+			SearchEngine searchEngine = new SearchEngine(us, SearchEngine.BEST_REPLY, SearchEngine.MAX_DEPTH, timeLimit);
+			Ponderer ponderer = pondering == 1 ? new Ponderer(searchEngine, us) : null;
+			Engine[] engines = new Engine[Board.NUM_PLAYERS + 1];
+			engines[us] = searchEngine;
+			for (int i = 1; i < players.length; i++)
+				engines[players[i]] = createEngine(engine, players[i], timeLimit);
+
+			long depthSum = 0, nodeSum = 0;
+			int searches = 0, hits = 0;
+			for (int round = 0; round < rounds; round++) {
+				for (int player : players) {
+					long start = System.nanoTime();
+					board.setSideToMove(player);
+					if (player == us && ponderer != null && ponderer.stopForTurn(board))
+						hits++;
+					int[] move = engines[player].nextMove(board);
+					if (player == us) {
+						depthSum += searchEngine.getCompletedDepth();
+						nodeSum += searchEngine.getNodes();
+						searches++;
+					}
+					// The other players' turns last as long as they may, as if they were thinking on the server
+					else {
+						long left = timeLimit - (System.nanoTime() - start) / 1000000;
+						if (left > 0)
+							Thread.sleep(left);
+					}
+					if (move != null) {
+						board.move(move[0], move[1], move[2], move[3]);
+						for (int other : players)
+							engines[other].movePlayed(move[0], move[1], move[2], move[3]);
+						if (ponderer != null)
+							ponderer.movePlayed(board, move[0], move[1], move[2], move[3]);
+					}
+				}
+			}
+			if (ponderer != null)
+				ponderer.stop();
+			System.out.println((pondering == 1 ? "pondering: " : "not pondering: ") + "average depth " + 
+					String.format("%.2f", (double)depthSum / searches) + ", " + nodeSum / searches + " nodes/search" +
+					(pondering == 1 ? ", " + hits + " of " + searches + " positions pondered" : ""));
+		}
+	}
+
+	public static void main(String[] args) throws FileNotFoundException, InterruptedException {
+		if (args.length > 0 && args[0].equals("-ponder")) {
+			int rounds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ROUNDS;
+			int[] players = Perft.parsePlayers(args.length > 2 ? args[2] : Perft.DEFAULT_PLAYERS);
+			String engine = args.length > 3 ? args[3] : DEFAULT_ENGINE;
+			long timeLimit = args.length > 4 ? Long.parseLong(args[4]) : DEFAULT_PONDER_TIME_LIMIT;
+			runPonder(rounds, players, engine, timeLimit);
+			return;
+		}
+		if (args.length > 0 && args[0].equals("-evaluators")) {
+			runEvaluators(args.length > 1 ? Integer.parseInt(args[1]) : SearchEngine.DEFAULT_MAX_DEPTH);
+			return;
+		}
+		if (args.length > 0 && args[0].equals("-ordering")) {
+			runOrdering(args.length > 1 ? Integer.parseInt(args[1]) : SearchEngine.DEFAULT_MAX_DEPTH);
+			return;
+		}
+		
+		int rounds = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ROUNDS;
+		int[] players = Perft.parsePlayers(args.length > 1 ? args[1] : Perft.DEFAULT_PLAYERS);
+		String engine = args.length > 2 ? args[2] : DEFAULT_ENGINE;
+		long timeLimit = args.length > 3 ? Long.parseLong(args[3]) : 0;
+
+		// Play once to warm up the JIT, then measure
+		run(rounds, players, engine, timeLimit);
+		run(rounds, players, engine, timeLimit);
+	}
+
+}
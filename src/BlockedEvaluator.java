@@ -0,0 +1,44 @@
+/** The Blocked Evaluator Class
+ *  Scores each player by the number of its pieces outside the target home that cannot get any closer to the far
+ *  corner of it in one step or one jump, because every cell they could step or land on towards the corner is
+ *  taken (or is in a home they may not enter). Such pieces have to wait for the pieces around them to move, or go
+ *  sideways. It is meant to be weighed against the total distance in a WeightedEvaluator
+ */
+
+public class BlockedEvaluator extends NeighbourhoodEvaluator {
+
+	/** Checks whether a piece is blocked
+	 *  @param board the position the piece is in
+	 *  @param cell the cell of the piece
+	 *  @param owner the player the piece belongs to
+	 *  @return 1 if the piece is outside its target home and has no step or jump towards its target corner,
+	 *  0 otherwise
+	 */
+	protected int scorePiece(Board board, int cell, int owner) {
+		if (Board.isTargetHome(cell, owner))
+			return 0;
+		int distance = Board.getTargetDistance(cell, owner);
+		for (int direction = Board.DIRECTION_SOUTH; direction <= Board.DIRECTION_WEST; direction++) {
+			int adjacent = Board.getAdjacentCell(cell, direction);
+			if (adjacent < 0)
+				continue;
+			int destination = adjacent;
+			if (!board.isEmpty(adjacent)) {
+				destination = Board.getJumpCell(cell, direction);
+				if (destination < 0 || !board.isEmpty(destination))
+					continue;
+			}
+			if (Board.getTargetDistance(destination, owner) < distance && !Board.isNotAllowedHome(destination, owner))
+				return 0;
+		}
+		return 1;
+	}
+
+	/** Gets the most pieces a player can have blocked
+	 *  @return the number of pieces a player has
+	 */
+	public int getMaxCost() {
+		return Board.PIECES_PER_PLAYER;
+	}
+
+}
@@ -1,6 +1,10 @@
 import java.awt.Point;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
 import java.util.Arrays;
+import java.util.Random;
 import java.util.Scanner;
 
 /** The Board Class
@@ -13,8 +17,46 @@ public class Board {
 	
 	private int[][] board;
 	
+	// Bitboards of the playable holes, split into the low (cells 0-63) and high (cells 64-120) words
+	// Index 0 holds the empty holes, and indices 1 to 6 hold the pieces of each player
+	private long[] occupancyLow;
+	private long[] occupancyHigh;
+	
+	// The cells of each player's pieces, the number of pieces each player has, and the position of each
+	// occupied cell in its owner's list
+	private int[][] pieceCells;
+	private int[] pieceCount;
+	private int[] pieceSlot;
+	
+	// The number of occupied cells in each goal row of each player's target home, and a mask of the goal rows
+	// of each player that are full (bit r for row r)
+	private int[][] goalRowCount;
+	private int[] fullGoalRows;
+	
+	// Zobrist key of the position (pieces and side to move), kept up to date on every change
+	private long hash;
+	private int sideToMove;
+	
+	// Every destination of the piece on reachableSource, cached for the position with key reachableHash
+	private long reachableLow;
+	private long reachableHigh;
+	private int reachableSource;
+	private long reachableHash;
+	private int[] searchQueue;
+	private int[] searchParent;
+	
+	// Moves made with makeMove that can still be unmade, packed as (from | to << 8 | previous side to move << 16)
+	private int[] undoStack;
+	private int undoCount;
+	
 	public static final int NUM_ROWS = 17;
 	public static final int NUM_COLUMNS = 17;
+	public static final int NUM_CELLS = 121;
+	public static final int NUM_PLAYERS = 6;
+	public static final int PIECES_PER_PLAYER = 10;
+	
+	// The most moves generateMoves can write for one player
+	public static final int MAX_MOVES = PIECES_PER_PLAYER * NUM_CELLS;
 
 	public static final int DIRECTION_SOUTH = 1;
 	public static final int DIRECTION_SOUTHEAST = 2;
@@ -25,14 +67,182 @@ public class Board {
 	public static final int DIRECTION_EAST = 7;
 	public static final int DIRECTION_WEST = 8;
 	
+	private static final int INITIAL_UNDO_CAPACITY = 64;
+	
+	// Whether each cell is in each player's home, in the home each player is trying to reach, and in a home each
+	// player should not enter, indexed by player and then cell, along with bitboards of the same regions
+	private static final boolean[][] HOME = new boolean[NUM_PLAYERS + 1][NUM_CELLS];
+	private static final boolean[][] TARGET_HOME = new boolean[NUM_PLAYERS + 1][NUM_CELLS];
+	private static final boolean[][] NOT_ALLOWED_HOME = new boolean[NUM_PLAYERS + 1][NUM_CELLS];
+	private static final long[] TARGET_HOME_LOW = new long[NUM_PLAYERS + 1];
+	private static final long[] TARGET_HOME_HIGH = new long[NUM_PLAYERS + 1];
+	private static final long[] NOT_ALLOWED_HOME_LOW = new long[NUM_PLAYERS + 1];
+	private static final long[] NOT_ALLOWED_HOME_HIGH = new long[NUM_PLAYERS + 1];
+	
+	// The cell of each player's target home farthest from the centre, and the number of walks from each cell to it,
+	// indexed by player and then cell
+	private static final int[] TARGET_CORNER = new int[NUM_PLAYERS + 1];
+	private static final int[][] TARGET_DISTANCE = new int[NUM_PLAYERS + 1][NUM_CELLS];
+	
+	// A player's pieces fill the board in goal lines running across the way to the target home: line 0 is the
+	// corner of the target home and the target home is lines 0 to GOAL_ROWS - 1, where line r is the r + 1 cells
+	// r walks from the corner. The lines past the target home only matter while it is full of someone else's
+	// pieces. The player whose target home each cell is in (0 for none), the cell's line in it, each cell's goal
+	// line for each player (-1 for none), bitboards of each goal line, and how many lines each player has
+	public static final int GOAL_ROWS = 4;
+	private static final int MAX_GOAL_LINES = NUM_ROWS;
+	private static final int[] GOAL_PLAYER = new int[NUM_CELLS];
+	private static final int[] GOAL_ROW = new int[NUM_CELLS];
+	private static final int[][] GOAL_LINE = new int[NUM_PLAYERS + 1][NUM_CELLS];
+	private static final long[][] GOAL_LINE_LOW = new long[NUM_PLAYERS + 1][MAX_GOAL_LINES];
+	private static final long[][] GOAL_LINE_HIGH = new long[NUM_PLAYERS + 1][MAX_GOAL_LINES];
+	private static final int[] NUM_GOAL_LINES = new int[NUM_PLAYERS + 1];
+	
+	// Random keys for each player's piece on each cell and for each side to move; the seed is fixed so that
+	// keys are the same from run to run (empty holes and side 0 hash to 0)
+	private static final long ZOBRIST_SEED = 0x43686563L;
+	private static final long[][] ZOBRIST_PIECE = new long[NUM_PLAYERS + 1][NUM_CELLS];
+	private static final long[] ZOBRIST_SIDE = new long[NUM_PLAYERS + 1];
+	
+	private static final String BOARD_MAP_FILE = "BoardMap";
+	
+	// The setup encoded in BoardMap, with and without the starting pieces, read once and shared by every board
+	private static int[][] boardMap;
+	private static int[][] emptyBoardMap;
+	
 	private static boolean isTesting = false;
 	
+	// Maps between (row, column) coordinates and the index of a playable hole (cell), in row-major order
+	private static final int[][] CELL_INDEX = new int[NUM_ROWS][NUM_COLUMNS];
+	private static final int[] CELL_ROW = new int[NUM_CELLS];
+	private static final int[] CELL_COLUMN = new int[NUM_CELLS];
+	
+	// The six directions a piece can move in, and the row and column offsets of each direction constant
+	private static final int[] HEX_DIRECTIONS = { DIRECTION_SOUTHEAST, DIRECTION_NORTHEAST, DIRECTION_NORTHWEST,
+			DIRECTION_SOUTHWEST, DIRECTION_EAST, DIRECTION_WEST };
+	private static final int[] ROW_OFFSET = { 0, 0, 1, 0, 0, -1, 0, 1, -1 };
+	private static final int[] COLUMN_OFFSET = { 0, 0, 1, -1, 0, -1, 1, 0, 0 };
+	
+	// The cell adjacent to each cell, and the cell a jump lands on, indexed by direction constant and then cell
+	// (-1 if there is no such cell)
+	private static final int[][] ADJACENT_CELL = new int[DIRECTION_WEST + 1][NUM_CELLS];
+	private static final int[][] JUMP_CELL = new int[DIRECTION_WEST + 1][NUM_CELLS];
+	
+	// Bitboards of the holes adjacent to each cell
+	private static final long[] ADJACENT_LOW = new long[NUM_CELLS];
+	private static final long[] ADJACENT_HIGH = new long[NUM_CELLS];
+	
+	static {
+		// The board is the union of two overlapping triangles
+		int cell = 0;
+		for (int row = 0; row < NUM_ROWS; row++) {
+			for (int column = 0; column < NUM_COLUMNS; column++) {
+				if ((row <= 12 && column >= 4 && column <= row + 4) || (row >= 4 && column >= row - 4 && column <= 12)) {
+					CELL_INDEX[row][column] = cell;
+					CELL_ROW[cell] = row;
+					CELL_COLUMN[cell] = column;
+					cell++;
+				}
+				else
+					CELL_INDEX[row][column] = -1;
+			}
+		}
+		
+		for (int player = 1; player <= NUM_PLAYERS; player++) {
+			for (cell = 0; cell < NUM_CELLS; cell++)
+				HOME[player][cell] = inHome(CELL_ROW[cell], CELL_COLUMN[cell], player);
+		}
+		for (int player = 1; player <= NUM_PLAYERS; player++) {
+			for (cell = 0; cell < NUM_CELLS; cell++) {
+				// Players may only be in their own home and the home opposite it
+				int opposite = getTargetPlayer(player);
+				TARGET_HOME[player][cell] = HOME[opposite][cell];
+				for (int other = 1; other <= NUM_PLAYERS; other++)
+					if (other != player && other != opposite && HOME[other][cell])
+						NOT_ALLOWED_HOME[player][cell] = true;
+				
+				long bit = 1L << (cell & 63);
+				if (TARGET_HOME[player][cell] && cell < 64)
+					TARGET_HOME_LOW[player] |= bit;
+				else if (TARGET_HOME[player][cell])
+					TARGET_HOME_HIGH[player] |= bit;
+				if (NOT_ALLOWED_HOME[player][cell] && cell < 64)
+					NOT_ALLOWED_HOME_LOW[player] |= bit;
+				else if (NOT_ALLOWED_HOME[player][cell])
+					NOT_ALLOWED_HOME_HIGH[player] |= bit;
+			}
+		}
+		
+		int centre = CELL_INDEX[NUM_ROWS / 2][NUM_COLUMNS / 2];
+		for (int player = 1; player <= NUM_PLAYERS; player++) {
+			TARGET_CORNER[player] = -1;
+			for (cell = 0; cell < NUM_CELLS; cell++)
+				if (TARGET_HOME[player][cell] && (TARGET_CORNER[player] == -1 ||
+						getDistance(cell, centre) > getDistance(TARGET_CORNER[player], centre)))
+					TARGET_CORNER[player] = cell;
+			for (cell = 0; cell < NUM_CELLS; cell++) {
+				TARGET_DISTANCE[player][cell] = getDistance(cell, TARGET_CORNER[player]);
+				int line = getGoalLine(CELL_ROW[cell], CELL_COLUMN[cell], player);
+				GOAL_LINE[player][cell] = line;
+				if (line < 0)
+					continue;
+				NUM_GOAL_LINES[player] = Math.max(NUM_GOAL_LINES[player], line + 1);
+				if (cell < 64)
+					GOAL_LINE_LOW[player][line] |= 1L << cell;
+				else
+					GOAL_LINE_HIGH[player][line] |= 1L << (cell - 64);
+				if (TARGET_HOME[player][cell]) {
+					GOAL_PLAYER[cell] = player;
+					GOAL_ROW[cell] = line;
+				}
+			}
+		}
+		
+		Random random = new Random(ZOBRIST_SEED);
+		for (int player = 1; player <= NUM_PLAYERS; player++) {
+			ZOBRIST_SIDE[player] = random.nextLong();
+			for (cell = 0; cell < NUM_CELLS; cell++)
+				ZOBRIST_PIECE[player][cell] = random.nextLong();
+		}
+		
+		for (int direction = 0; direction <= DIRECTION_WEST; direction++) {
+			Arrays.fill(ADJACENT_CELL[direction], -1);
+			Arrays.fill(JUMP_CELL[direction], -1);
+		}
+		for (cell = 0; cell < NUM_CELLS; cell++) {
+			for (int direction : HEX_DIRECTIONS) {
+				int row = CELL_ROW[cell] + ROW_OFFSET[direction];
+				int column = CELL_COLUMN[cell] + COLUMN_OFFSET[direction];
+				int adjacent = getCell(row, column);
+				if (adjacent < 0)
+					continue;
+				ADJACENT_CELL[direction][cell] = adjacent;
+				JUMP_CELL[direction][cell] = getCell(row + ROW_OFFSET[direction], column + COLUMN_OFFSET[direction]);
+				if (adjacent < 64)
+					ADJACENT_LOW[cell] |= 1L << adjacent;
+				else
+					ADJACENT_HIGH[cell] |= 1L << (adjacent - 64);
+			}
+		}
+	}
+	
 	/** Creates a new board with the setup specified in BoardMap
 	 *  Precondition: BoardMap exists in the project folder and has been properly initialized
 	 *  Postcondition: a new board with the setup specified in BoardMap has been created and returned
 	 */
 	public Board () {
 		board = new int[NUM_ROWS][NUM_COLUMNS];
+		occupancyLow = new long[NUM_PLAYERS + 1];
+		occupancyHigh = new long[NUM_PLAYERS + 1];
+		pieceCells = new int[NUM_PLAYERS + 1][NUM_CELLS];
+		pieceCount = new int[NUM_PLAYERS + 1];
+		pieceSlot = new int[NUM_CELLS];
+		goalRowCount = new int[NUM_PLAYERS + 1][GOAL_ROWS];
+		fullGoalRows = new int[NUM_PLAYERS + 1];
+		undoStack = new int[INITIAL_UNDO_CAPACITY];
+		searchQueue = new int[NUM_CELLS];
+		searchParent = new int[NUM_CELLS];
+		reachableSource = -1;
 		newGame();
 	}
 	/** A clone constructor that creates a new board with a pre-existing board state
@@ -44,6 +254,323 @@ public class Board {
 		this.board = new int[NUM_ROWS][NUM_COLUMNS];
 		for (int row = 0; row < NUM_ROWS; row++)
 			this.board[row] = Arrays.copyOf(board.getBoard()[row], board.getBoard()[row].length);
+		occupancyLow = Arrays.copyOf(board.occupancyLow, board.occupancyLow.length);
+		occupancyHigh = Arrays.copyOf(board.occupancyHigh, board.occupancyHigh.length);
+		pieceCells = new int[NUM_PLAYERS + 1][];
+		for (int player = 0; player <= NUM_PLAYERS; player++)
+			pieceCells[player] = Arrays.copyOf(board.pieceCells[player], NUM_CELLS);
+		pieceCount = Arrays.copyOf(board.pieceCount, board.pieceCount.length);
+		pieceSlot = Arrays.copyOf(board.pieceSlot, NUM_CELLS);
+		goalRowCount = new int[NUM_PLAYERS + 1][];
+		for (int player = 0; player <= NUM_PLAYERS; player++)
+			goalRowCount[player] = Arrays.copyOf(board.goalRowCount[player], GOAL_ROWS);
+		fullGoalRows = Arrays.copyOf(board.fullGoalRows, board.fullGoalRows.length);
+		hash = board.hash;
+		sideToMove = board.sideToMove;
+		undoStack = new int[INITIAL_UNDO_CAPACITY];
+		searchQueue = new int[NUM_CELLS];
+		searchParent = new int[NUM_CELLS];
+		reachableSource = -1;
+	}
+	
+	/** Gets the cell index of a point on the board
+	 *  Precondition: row and column are valid integers
+	 *  Postcondition: the cell index of the point has been returned
+	 *  @param row the row of the point
+	 *  @param column the column of the point
+	 *  @return the index (0 to NUM_CELLS - 1) of the point, otherwise -1 if the point is not on the board
+	 */
+	public static int getCell(int row, int column) {
+		if (row < 0 || row >= NUM_ROWS || column < 0 || column >= NUM_COLUMNS)
+			return -1;
+		return CELL_INDEX[row][column];
+	}
+	
+	/** Gets the row of a cell
+	 *  Precondition: cell is a valid cell index (0 to NUM_CELLS - 1)
+	 *  @param cell the index of the cell
+	 *  @return the row of the cell
+	 */
+	public static int getRow(int cell) {
+		return CELL_ROW[cell];
+	}
+	
+	/** Gets the column of a cell
+	 *  Precondition: cell is a valid cell index (0 to NUM_CELLS - 1)
+	 *  @param cell the index of the cell
+	 *  @return the column of the cell
+	 */
+	public static int getColumn(int cell) {
+		return CELL_COLUMN[cell];
+	}
+	
+	/** Gets the cell adjacent to a cell in the specified direction
+	 *  Precondition: cell is a valid cell index and direction is one of the direction constants
+	 *  @param cell the index of the original cell
+	 *  @param direction the direction of the adjacent cell from the original cell
+	 *  @return the index of the adjacent cell, otherwise -1 if it is not on the board
+	 */
+	public static int getAdjacentCell(int cell, int direction) {
+		return ADJACENT_CELL[direction][cell];
+	}
+	
+	/** Gets the cell that a piece on a cell lands on when it jumps in the specified direction
+	 *  Precondition: cell is a valid cell index and direction is one of the direction constants
+	 *  @param cell the index of the cell jumped from
+	 *  @param direction the direction of the jump
+	 *  @return the index of the landing cell, otherwise -1 if it is not on the board
+	 */
+	public static int getJumpCell(int cell, int direction) {
+		return JUMP_CELL[direction][cell];
+	}
+	
+	/** Gets the number of walks it takes to get from one cell to another on an empty board
+	 *  Precondition: cell1 and cell2 are valid cell indices
+	 *  @param cell1 the index of the first cell
+	 *  @param cell2 the index of the second cell
+	 *  @return the hex distance between the cells
+	 */
+	public static int getDistance(int cell1, int cell2) {
+		int rowChange = CELL_ROW[cell1] - CELL_ROW[cell2];
+		int columnChange = CELL_COLUMN[cell1] - CELL_COLUMN[cell2];
+		return (Math.abs(rowChange) + Math.abs(columnChange) + Math.abs(rowChange - columnChange)) / 2;
+	}
+	
+	/** Gets the square of the straight-line distance between two cells, with neighbouring cells 1 apart
+	 *  Precondition: cell1 and cell2 are valid cell indices
+	 *  @param cell1 the index of the first cell
+	 *  @param cell2 the index of the second cell
+	 *  @return the squared Euclidean distance between the centres of the cells
+	 */
+	public static int getSquaredDistance(int cell1, int cell2) {
+		int rowChange = CELL_ROW[cell1] - CELL_ROW[cell2];
+		int columnChange = CELL_COLUMN[cell1] - CELL_COLUMN[cell2];
+		return rowChange * rowChange - rowChange * columnChange + columnChange * columnChange;
+	}
+	
+	/** Checks whether a cell is set in a bitboard
+	 *  Precondition: cell is a valid cell index (0 to NUM_CELLS - 1)
+	 *  @param low the low word (cells 0 to 63) of the bitboard
+	 *  @param high the high word (cells 64 to 120) of the bitboard
+	 *  @param cell the index of the cell to check
+	 *  @return true if the cell is set in the bitboard, false otherwise
+	 */
+	public static boolean isSet(long low, long high, int cell) {
+		if (cell < 64)
+			return (low & (1L << cell)) != 0;
+		return (high & (1L << (cell - 64))) != 0;
+	}
+	
+	/** Gets the low word (cells 0 to 63) of the bitboard of the holes holding a colour
+	 *  Precondition: colour is between 0 (empty) and NUM_PLAYERS inclusive
+	 *  @param colour the player whose pieces to get, or 0 for the empty holes
+	 *  @return the low word of the bitboard
+	 */
+	public long getOccupancyLow(int colour) {
+		return occupancyLow[colour];
+	}
+	
+	/** Gets the high word (cells 64 to 120) of the bitboard of the holes holding a colour
+	 *  Precondition: colour is between 0 (empty) and NUM_PLAYERS inclusive
+	 *  @param colour the player whose pieces to get, or 0 for the empty holes
+	 *  @return the high word of the bitboard
+	 */
+	public long getOccupancyHigh(int colour) {
+		return occupancyHigh[colour];
+	}
+	
+	/** Gets the low word of the bitboard of the empty holes adjacent to a cell (i.e. the walks out of it)
+	 *  Precondition: cell is a valid cell index (0 to NUM_CELLS - 1)
+	 *  @param cell the index of the cell to walk from
+	 *  @return the low word of the bitboard of the empty adjacent holes
+	 */
+	public long getWalksLow(int cell) {
+		return ADJACENT_LOW[cell] & occupancyLow[0];
+	}
+	
+	/** Gets the high word of the bitboard of the empty holes adjacent to a cell (i.e. the walks out of it)
+	 *  Precondition: cell is a valid cell index (0 to NUM_CELLS - 1)
+	 *  @param cell the index of the cell to walk from
+	 *  @return the high word of the bitboard of the empty adjacent holes
+	 */
+	public long getWalksHigh(int cell) {
+		return ADJACENT_HIGH[cell] & occupancyHigh[0];
+	}
+	
+	/** Checks whether a cell is empty
+	 *  Precondition: cell is a valid cell index (0 to NUM_CELLS - 1)
+	 *  @param cell the index of the cell to check
+	 *  @return true if there is no piece on the cell, false otherwise
+	 */
+	public boolean isEmpty(int cell) {
+		return isSet(occupancyLow[0], occupancyHigh[0], cell);
+	}
+	
+	/** Gets the piece on a cell
+	 *  Precondition: cell is a valid cell index (0 to NUM_CELLS - 1)
+	 *  @param cell the index of the cell
+	 *  @return the player whose piece is on the cell, or 0 if the cell is empty
+	 */
+	public int getPiece(int cell) {
+		return board[CELL_ROW[cell]][CELL_COLUMN[cell]];
+	}
+	
+	/** Puts a colour on a cell, keeping the array and the bitboards in sync
+	 *  Precondition: cell is a valid cell index and colour is between 0 (empty) and NUM_PLAYERS inclusive
+	 *  Postcondition: the cell now holds colour
+	 *  @param cell the index of the cell
+	 *  @param colour the player whose piece to put on the cell, or 0 to empty it
+	 */
+	private void setCell(int cell, int colour) {
+		int row = CELL_ROW[cell];
+		int column = CELL_COLUMN[cell];
+		int oldColour = board[row][column];
+		if (oldColour == colour)
+			return;
+		
+		if (cell < 64) {
+			long bit = 1L << cell;
+			occupancyLow[oldColour] &= ~bit;
+			occupancyLow[colour] |= bit;
+		}
+		else {
+			long bit = 1L << (cell - 64);
+			occupancyHigh[oldColour] &= ~bit;
+			occupancyHigh[colour] |= bit;
+		}
+		hash ^= ZOBRIST_PIECE[oldColour][cell] ^ ZOBRIST_PIECE[colour][cell];
+		board[row][column] = colour;
+		if (GOAL_PLAYER[cell] > 0 && (oldColour == 0) != (colour == 0))
+			countGoalCell(cell, colour == 0 ? -1 : 1);
+		
+		// Take the cell out of the old owner's list by moving their last piece into its slot. When a piece moves,
+		// its new cell is added first, so it is the last piece and takes over the slot of the old cell
+		if (oldColour > 0) {
+			int lastCell = pieceCells[oldColour][--pieceCount[oldColour]];
+			pieceCells[oldColour][pieceSlot[cell]] = lastCell;
+			pieceSlot[lastCell] = pieceSlot[cell];
+		}
+		if (colour > 0) {
+			pieceSlot[cell] = pieceCount[colour];
+			pieceCells[colour][pieceCount[colour]++] = cell;
+		}
+	}
+	
+	/** Adds to or takes from the number of occupied cells in a cell's goal row
+	 *  Precondition: cell is in a player's target home
+	 *  Postcondition: the count and the full goal rows of the player have been updated
+	 *  @param cell the cell that has been filled or emptied
+	 *  @param change 1 if the cell has been filled, -1 if it has been emptied
+	 */
+	private void countGoalCell(int cell, int change) {
+		int player = GOAL_PLAYER[cell];
+		int goalRow = GOAL_ROW[cell];
+		goalRowCount[player][goalRow] += change;
+		if (goalRowCount[player][goalRow] == goalRow + 1)
+			fullGoalRows[player] |= 1 << goalRow;
+		else
+			fullGoalRows[player] &= ~(1 << goalRow);
+	}
+	
+	/** Rebuilds the bitboards, the piece lists, the goal rows and the hash from the board array
+	 *  Precondition: every playable hole of the board array holds a value from 0 to NUM_PLAYERS
+	 *  Postcondition: the bitboards, the piece lists (in row-major order), the goal rows and the hash match the
+	 *  board array
+	 */
+	private void rebuildOccupancy() {
+		Arrays.fill(occupancyLow, 0);
+		Arrays.fill(occupancyHigh, 0);
+		Arrays.fill(pieceCount, 0);
+		for (int player = 0; player <= NUM_PLAYERS; player++)
+			Arrays.fill(goalRowCount[player], 0);
+		Arrays.fill(fullGoalRows, 0);
+		hash = ZOBRIST_SIDE[sideToMove];
+		for (int cell = 0; cell < NUM_CELLS; cell++) {
+			int colour = board[CELL_ROW[cell]][CELL_COLUMN[cell]];
+			if (cell < 64)
+				occupancyLow[colour] |= 1L << cell;
+			else
+				occupancyHigh[colour] |= 1L << (cell - 64);
+			hash ^= ZOBRIST_PIECE[colour][cell];
+			if (colour > 0) {
+				pieceSlot[cell] = pieceCount[colour];
+				pieceCells[colour][pieceCount[colour]++] = cell;
+				if (GOAL_PLAYER[cell] > 0)
+					countGoalCell(cell, 1);
+			}
+		}
+	}
+	
+	/** Moves a piece between two cells and passes the turn to the next seat after the piece's owner
+	 *  Precondition: originalCell and newCell are valid cell indices and newCell is empty
+	 *  Postcondition: the piece has been moved and the hash has been updated
+	 *  @param originalCell the original cell of the piece
+	 *  @param newCell the cell to move the piece to
+	 */
+	private void movePiece(int originalCell, int newCell) {
+		int colour = getPiece(originalCell);
+		setCell(newCell, colour);
+		setCell(originalCell, 0);
+		if (colour > 0)
+			setSideToMove(colour % NUM_PLAYERS + 1);
+	}
+	
+	/** Gets the number of pieces a player has on the board
+	 *  Precondition: player is between 1 and NUM_PLAYERS inclusive
+	 *  @param player the player whose pieces to count
+	 *  @return the number of pieces the player has on the board
+	 */
+	public int getPieceCount(int player) {
+		return pieceCount[player];
+	}
+	
+	/** Gets the cell of one of a player's pieces; iterating index from 0 to getPieceCount(player) - 1 visits
+	 *  every piece of the player once
+	 *  Precondition: player is between 1 and NUM_PLAYERS inclusive, and index is between 0 and 
+	 *  getPieceCount(player) - 1 inclusive
+	 *  @param player the player whose piece to get
+	 *  @param index the position of the piece in the player's list
+	 *  @return the cell of the piece
+	 */
+	public int getPieceCell(int player, int index) {
+		return pieceCells[player][index];
+	}
+	
+	/** Gets the Zobrist key of the current position, which covers every piece and the side to move
+	 *  @return the 64-bit key of the position
+	 */
+	public long getHash() {
+		return hash;
+	}
+	
+	/** Gets the player whose turn it is, as far as the board knows (the next seat after the last piece moved,
+	 *  unless it has been set)
+	 *  @return the player to move, or 0 if it is not known
+	 */
+	public int getSideToMove() {
+		return sideToMove;
+	}
+	
+	/** Sets the player whose turn it is
+	 *  Precondition: player is between 0 (unknown) and NUM_PLAYERS inclusive
+	 *  Postcondition: the side to move and the hash have been updated
+	 *  @param player the player to move
+	 */
+	public void setSideToMove(int player) {
+		hash ^= ZOBRIST_SIDE[sideToMove] ^ ZOBRIST_SIDE[player];
+		sideToMove = player;
+	}
+	
+	/** Places a piece on the board (without checking if the move is valid)
+	 *  Precondition: colour is between 0 (empty) and NUM_PLAYERS inclusive, and row and column correspond to a
+	 *  point on the board
+	 *  Postcondition: the piece has been placed on the board
+	 *  @param colour the player whose piece to place, or 0 to clear the spot
+	 *  @param row the row of the spot to place the piece on
+	 *  @param column the column of the spot to place the piece on
+	 */
+	public void placePiece(int colour, int row, int column) {
+		setCell(CELL_INDEX[row][column], colour);
 	}
 	
 	/** Checks if two points on the board are adjacent and returns the direction they are adjacent in
@@ -58,18 +585,10 @@ public class Board {
 	 *  @return the direction that the pieces are adjacent in (as an integer constant), otherwise 0 if not adjacent
 	 */
 	public static int isAdjacent(int row1, int column1, int row2, int column2) {
-		if (row1 == row2 && column1 + 1 == column2)
-			return DIRECTION_SOUTHWEST;
-		if (row1 == row2 && column1 - 1 == column2)
-			return DIRECTION_NORTHEAST;
-		if (column1 == column2 && row1 + 1 == row2)
-			return DIRECTION_EAST;
-		if (column1 == column2 && row1 - 1 == row2)
-			return DIRECTION_WEST;
-		if (row1 + 1 == row2 && column1 + 1 == column2)
-			return DIRECTION_SOUTHEAST;
-		if (row1 - 1 == row2 && column1 - 1 == column2)
-			return DIRECTION_NORTHWEST;
+		for (int direction : HEX_DIRECTIONS) {
+			if (row1 + ROW_OFFSET[direction] == row2 && column1 + COLUMN_OFFSET[direction] == column2)
+				return direction;
+		}
 		return 0;
 	}
 	
@@ -80,8 +599,7 @@ public class Board {
 	 *  @return whether or not the coordinates are valid for the board
 	 */
 	public boolean isValidPoint(Point coordinates) {
-		return (coordinates.getX() < NUM_ROWS && coordinates.getX() >= 0 && coordinates.getY() >= 0 
-				&& coordinates.getY() < NUM_COLUMNS && board[(int)coordinates.getX()][(int)coordinates.getY()] > -1);
+		return isValidPoint((int)coordinates.getX(), (int)coordinates.getY());
 	}
 	
 	/** Returns whether or not a point is a valid point on the board
@@ -92,7 +610,7 @@ public class Board {
 	 *  @return whether or not the coordinates are valid for the board
 	 */
 	public boolean isValidPoint(int row, int column) {
-		return (row < NUM_ROWS && row >= 0 && column >= 0 && column < NUM_COLUMNS && board[row][column] > -1);
+		return getCell(row, column) >= 0;
 	}
 	
 	/** Gets the coordinates of the point adjacent to the specified point in the specified direction
@@ -119,62 +637,134 @@ public class Board {
 	 *  direction
 	 */
 	public Point getAdjacent(int row, int column, int direction) {
-		if (direction == DIRECTION_SOUTHWEST)
-			return new Point(row, column + 1);
-		if (direction == DIRECTION_NORTHEAST)
-			return new Point(row, column - 1);
-		if (direction == DIRECTION_EAST)
-			return new Point(row + 1, column);
-		if (direction == DIRECTION_WEST)
-			return new Point(row - 1, column);
-		if (direction == DIRECTION_SOUTHEAST)
-			return new Point(row + 1, column + 1);
-		if (direction == DIRECTION_NORTHWEST)
-			return new Point(row - 1, column - 1);
-		return null;
-	}
-	
-	/** A recursive algorithm for determine whether or not a piece can jump to the specified spot
-	 *  Precondition: originalRow, originalColumn, newRow, and newColumn are valid integers 
-	 *  that correspond to two points on the board, and alreadyChecked is an initialized NUM_ROWS by NUM_COLUMNS
-	 *  integer array
-	 *  Postcondition: whether or not a piece can jump from the original point to the new point has been returned
-	 *  @param originalRow the original row of the piece
-	 *  @param originalColumn the original column of the piece
-	 *  @param newRow the row of the space to jump to
-	 *  @param newColumn the column of the space to jump to
-	 *  @param alreadyChecked an array listing all the spaces already checked in this iteration of the algorithm
-	 *  @return whether or not a piece positioned at originalRow, originalColumn can jump to newRow, newColumn,
-	 *  possibly using multiple jumps
-	 */
-	private boolean canJump(int originalRow, int originalColumn, int newRow, int newColumn, int[][] alreadyChecked){
-		//System.out.println(originalRow + " " + originalColumn+ " " + newRow+ " " + newColumn);
-		// Check if this spot has already been visited
-		if (alreadyChecked[originalRow][originalColumn] == 1)
-			return false;
+		if (direction < 1 || direction > DIRECTION_WEST || direction == DIRECTION_NORTH || direction == DIRECTION_SOUTH)
+			return null;
+		return new Point(row + ROW_OFFSET[direction], column + COLUMN_OFFSET[direction]);
+	}
+	
+	/** Finds every cell the piece on a cell can move to in one turn, with a single breadth-first search over
+	 *  its jumps, and caches the result for the current position
+	 *  Precondition: cell is a valid cell index
+	 *  Postcondition: reachableLow and reachableHigh hold every walk and every (possibly chained) jump
+	 *  destination of the piece on cell, and searchParent holds the cell each destination is reached from on a
+	 *  shortest path; the piece itself is lifted off the board, so it cannot be jumped over
+	 *  @param cell the cell of the piece to move
+	 */
+	private void findDestinations(int cell) {
+		if (reachableSource == cell && reachableHash == hash)
+			return;
 		
-		// Check if trying to jump to or from an occupied location
-		if (board[newRow][newColumn] != 0)
-			return false;
+		long emptyLow = occupancyLow[0];
+		long emptyHigh = occupancyHigh[0];
+		long visitedLow = 0;
+		long visitedHigh = 0;
+		if (cell < 64)
+			visitedLow = 1L << cell;
+		else
+			visitedHigh = 1L << (cell - 64);
 		
-		alreadyChecked[originalRow][originalColumn] = 1;
-		// Check in all possible piece directions - not north or south
-		for (int direction = 1; direction <= 8; direction++) {
-			if (direction != DIRECTION_NORTH && direction != DIRECTION_SOUTH) {
-				// Check if there's a piece to jump over in that direction
-				Point otherSpot = getAdjacent(originalRow, originalColumn, direction);
-				if (isValidPoint(otherSpot) && board[(int)otherSpot.getX()][(int)otherSpot.getY()] > 0) {
-					Point jumpSpot = getAdjacent(otherSpot, direction);
-					// Check if that spot beyond the piece is where you want to go, or if it's possible to jump to 
-					// the spot you want to go from that spot
-					if (isValidPoint(jumpSpot) && board[(int)jumpSpot.getX()][(int)jumpSpot.getY()] == 0 &&
-							(((int)jumpSpot.getX() == newRow && (int)jumpSpot.getY() == newColumn) ||
-							canJump((int)jumpSpot.getX(), (int)jumpSpot.getY(), newRow, newColumn, alreadyChecked)))
-						return true;					
-				}
+		int head = 0, tail = 0;
+		searchQueue[tail++] = cell;
+		while (head < tail) {
+			int current = searchQueue[head++];
+			for (int direction : HEX_DIRECTIONS) {
+				// Check if there's a piece to jump over in that direction, and an unvisited empty spot beyond it
+				int otherSpot = ADJACENT_CELL[direction][current];
+				if (otherSpot < 0 || otherSpot == cell || isSet(emptyLow, emptyHigh, otherSpot))
+					continue;
+				int jumpSpot = JUMP_CELL[direction][current];
+				if (jumpSpot < 0 || !isSet(emptyLow, emptyHigh, jumpSpot) || isSet(visitedLow, visitedHigh, jumpSpot))
+					continue;
+				if (jumpSpot < 64)
+					visitedLow |= 1L << jumpSpot;
+				else
+					visitedHigh |= 1L << (jumpSpot - 64);
+				searchParent[jumpSpot] = current;
+				searchQueue[tail++] = jumpSpot;
 			}
 		}
-		return false;
+		
+		// Add the walks, and take out the starting spot
+		reachableLow = visitedLow | (ADJACENT_LOW[cell] & emptyLow);
+		reachableHigh = visitedHigh | (ADJACENT_HIGH[cell] & emptyHigh);
+		for (int direction : HEX_DIRECTIONS) {
+			int adjacent = ADJACENT_CELL[direction][cell];
+			if (adjacent >= 0 && isSet(emptyLow, emptyHigh, adjacent))
+				searchParent[adjacent] = cell;
+		}
+		if (cell < 64)
+			reachableLow &= ~(1L << cell);
+		else
+			reachableHigh &= ~(1L << (cell - 64));
+		reachableSource = cell;
+		reachableHash = hash;
+	}
+	
+	/** Gets the low word of the bitboard of every cell the piece on a cell can move to
+	 *  Precondition: cell is a valid cell index
+	 *  @param cell the cell of the piece to move
+	 *  @return the low word (cells 0 to 63) of the destinations
+	 */
+	public long getDestinationsLow(int cell) {
+		findDestinations(cell);
+		return reachableLow;
+	}
+	
+	/** Gets the high word of the bitboard of every cell the piece on a cell can move to
+	 *  Precondition: cell is a valid cell index
+	 *  @param cell the cell of the piece to move
+	 *  @return the high word (cells 64 to 120) of the destinations
+	 */
+	public long getDestinationsHigh(int cell) {
+		findDestinations(cell);
+		return reachableHigh;
+	}
+	
+	/** Lists every cell the piece on a cell can move to
+	 *  Precondition: cell is a valid cell index and destinations has room for NUM_CELLS entries
+	 *  Postcondition: the destinations have been written, in increasing cell order, to the start of destinations
+	 *  @param cell the cell of the piece to move
+	 *  @param destinations the array to write the destination cells to
+	 *  @return the number of destinations written
+	 */
+	public int getDestinations(int cell, int[] destinations) {
+		findDestinations(cell);
+		int count = 0;
+		long bits = reachableLow;
+		while (bits != 0) {
+			destinations[count++] = Long.numberOfTrailingZeros(bits);
+			bits &= bits - 1;
+		}
+		bits = reachableHigh;
+		while (bits != 0) {
+			destinations[count++] = Long.numberOfTrailingZeros(bits) + 64;
+			bits &= bits - 1;
+		}
+		return count;
+	}
+	
+	/** Finds the steps a piece takes to reach one of its destinations: a walk, or the fewest jumps
+	 *  Precondition: cell and newCell are valid cell indices, and path has room for NUM_CELLS entries
+	 *  Postcondition: the cells visited, starting with cell and ending with newCell, have been written to path
+	 *  @param cell the cell of the piece to move
+	 *  @param newCell the destination of the piece
+	 *  @param path the array to write the cells of the path to
+	 *  @return the number of cells in the path, or 0 if newCell is not a destination of the piece
+	 */
+	public int getPath(int cell, int newCell, int[] path) {
+		findDestinations(cell);
+		if (!isSet(reachableLow, reachableHigh, newCell))
+			return 0;
+		
+		int length = 1;
+		for (int step = newCell; step != cell; step = searchParent[step])
+			length++;
+		int step = newCell;
+		for (int i = length - 1; i >= 0; i--) {
+			path[i] = step;
+			step = searchParent[step];
+		}
+		return length;
 	}
 	
 	/** Checks if moving a piece from one position to another is valid
@@ -192,19 +782,71 @@ public class Board {
 	public boolean isValidMove(int originalRow, int originalColumn, int newRow, int newColumn) {
 		// Check if the original and new spots are valid, if the new spot is empty
 		if (!isValidPoint(originalRow, originalColumn) || !isValidPoint(newRow, newColumn)
-				|| board[newRow][newColumn] != 0)
+				|| !isEmpty(CELL_INDEX[newRow][newColumn]))
 			return false;
 		
 		// Check if the spots are identical
 		if (originalRow == newRow && originalColumn == newColumn)
 			return false;
 		
-		// Check if the two spots are beside each other
-		if (isAdjacent(originalRow, originalColumn, newRow, newColumn) > 0)
-			return true;
-		
-		// Check if you can jump from the original point to the new point
-		return canJump(originalRow, originalColumn, newRow, newColumn, new int[NUM_ROWS][NUM_COLUMNS]);
+		// Check if the new spot is a walk or jump destination of the original spot
+		findDestinations(CELL_INDEX[originalRow][originalColumn]);
+		return isSet(reachableLow, reachableHigh, CELL_INDEX[newRow][newColumn]);
+	}
+	
+	/** Writes every legal move of a player into a buffer, skipping moves that end in a home the player should
+	 *  not enter
+	 *  Precondition: player is between 1 and NUM_PLAYERS inclusive, the player has at most PIECES_PER_PLAYER
+	 *  pieces, and moves has room for MAX_MOVES entries
+	 *  Postcondition: the moves have been written, packed with encodeMove, to the start of moves, grouped by
+	 *  piece and in increasing destination order for each piece
+	 *  @param player the player to generate the moves of
+	 *  @param moves the buffer to write the moves to
+	 *  @return the number of moves written
+	 */
+	public int generateMoves(int player, int[] moves) {
+		int count = 0;
+		for (int piece = 0; piece < pieceCount[player]; piece++) {
+			int cell = pieceCells[player][piece];
+			findDestinations(cell);
+			long bits = reachableLow & ~NOT_ALLOWED_HOME_LOW[player];
+			while (bits != 0) {
+				moves[count++] = encodeMove(cell, Long.numberOfTrailingZeros(bits));
+				bits &= bits - 1;
+			}
+			bits = reachableHigh & ~NOT_ALLOWED_HOME_HIGH[player];
+			while (bits != 0) {
+				moves[count++] = encodeMove(cell, Long.numberOfTrailingZeros(bits) + 64);
+				bits &= bits - 1;
+			}
+		}
+		return count;
+	}
+	
+	/** Packs a move into an int
+	 *  Precondition: originalCell and newCell are valid cell indices
+	 *  @param originalCell the original cell of the piece
+	 *  @param newCell the cell the piece moves to
+	 *  @return the packed move
+	 */
+	public static int encodeMove(int originalCell, int newCell) {
+		return originalCell << 8 | newCell;
+	}
+	
+	/** Gets the original cell of a move packed with encodeMove
+	 *  @param move the packed move
+	 *  @return the cell the piece moves from
+	 */
+	public static int getMoveFrom(int move) {
+		return move >>> 8;
+	}
+	
+	/** Gets the new cell of a move packed with encodeMove
+	 *  @param move the packed move
+	 *  @return the cell the piece moves to
+	 */
+	public static int getMoveTo(int move) {
+		return move & 0xFF;
 	}
 	
 	/** Checks to see if a spot is in a home that the player should not enter (i.e. not the player's
@@ -219,22 +861,8 @@ public class Board {
 	 *  @return true if the spot is in a home that the player should not enter, false otherwise
 	 */
 	public boolean notAllowedHome(int row, int column, int thisPlayer) {
-		if (thisPlayer == 1 || thisPlayer == 4) return 
-				isHome(row, column, 2) ||
-				isHome(row, column, 3) || 
-				isHome(row, column, 5) ||
-				isHome(row, column, 6);
-		else if (thisPlayer == 2 || thisPlayer == 5) return
-				isHome(row, column, 1) ||
-				isHome(row, column, 3) || 
-				isHome(row, column, 4) ||
-				isHome(row, column, 6);
-		else if (thisPlayer == 3 || thisPlayer == 6) return
-				isHome(row, column, 1) ||
-				isHome(row, column, 2) || 
-				isHome(row, column, 4) ||
-				isHome(row, column, 5);
-		return false;
+		int cell = getCell(row, column);
+		return cell >= 0 && thisPlayer >= 1 && thisPlayer <= NUM_PLAYERS && NOT_ALLOWED_HOME[thisPlayer][cell];
 	}
 	
 	/** Checks if a spot is in the home of a player
@@ -247,8 +875,18 @@ public class Board {
 	 *  @return true if the spot is in player's home, false otherwise
 	 */
 	public boolean isHome(int row, int column, int player) {
-		if (!isValidPoint(row, column))
-			return false;
+		int cell = getCell(row, column);
+		return cell >= 0 && player >= 1 && player <= NUM_PLAYERS && HOME[player][cell];
+	}
+	
+	/** Checks if a point is in the home of a player, by the shape of the board; used to build the home tables
+	 *  Precondition: row and column correspond to a point on the board
+	 *  @param row the row of the point to check
+	 *  @param column the column of the point to check
+	 *  @param player the player whose home to check if the point is in
+	 *  @return true if the point is in player's home, false otherwise
+	 */
+	private static boolean inHome(int row, int column, int player) {
 		if (player == 1 && row >= 13) {
 			return true;
 		}
@@ -270,6 +908,168 @@ public class Board {
 		return false;
 	}
 	
+	/** Gets the goal line a point is on for a player, by the shape of the board; used to build the goal tables.
+	 *  Players 1, 2, 4 and 5 fill whole rows or columns of the board, and players 3 and 6 fill diagonals that stop
+	 *  at the edges of their target home's triangle, ending with the diagonal 6 walks from the corner
+	 *  Precondition: row and column correspond to a point on the board
+	 *  @param row the row of the point
+	 *  @param column the column of the point
+	 *  @param player the player whose goal lines to check
+	 *  @return the goal line, counting from 0 at the corner of the player's target home, or -1 if the point is not
+	 *  on one
+	 */
+	private static int getGoalLine(int row, int column, int player) {
+		if (player == 1) {
+			return row;
+		}
+		else if (player == 2) {
+			return column;
+		}
+		else if (player == 3 && row <= 12 && column >= 4 && column - row + 8 <= 6) {
+			return column - row + 8;
+		}
+		else if (player == 4) {
+			return NUM_ROWS - 1 - row;
+		}
+		else if (player == 5) {
+			return NUM_COLUMNS - 1 - column;
+		}
+		else if (player == 6 && row >= 4 && column <= 12 && row - column + 8 <= 6) {
+			return row - column + 8;
+		}
+		return -1;
+	}
+	
+	/** Gets the player whose home is opposite a player's home (i.e. the home the player is trying to reach)
+	 *  Precondition: player is between 1 and NUM_PLAYERS inclusive
+	 *  @param player the player to find the target of
+	 *  @return the player whose home is opposite
+	 */
+	public static int getTargetPlayer(int player) {
+		return (player + 2) % NUM_PLAYERS + 1;
+	}
+	
+	/** Checks if a cell is in the home a player is trying to reach
+	 *  Precondition: cell is a valid cell index and player is between 1 and NUM_PLAYERS inclusive
+	 *  @param cell the cell to check
+	 *  @param player the player whose target home to check
+	 *  @return true if the cell is in the home opposite the player's home, false otherwise
+	 */
+	public static boolean isTargetHome(int cell, int player) {
+		return TARGET_HOME[player][cell];
+	}
+	
+	/** Gets the cell of a player's target home that is farthest from the centre of the board
+	 *  Precondition: player is between 1 and NUM_PLAYERS inclusive
+	 *  @param player the player whose target home to check
+	 *  @return the cell index of the corner of the target home
+	 */
+	public static int getTargetCorner(int player) {
+		return TARGET_CORNER[player];
+	}
+	
+	/** Gets the number of walks it takes to get from a cell to the corner of a player's target home on an empty board
+	 *  Precondition: cell is a valid cell index and player is between 1 and NUM_PLAYERS inclusive
+	 *  @param cell the cell to measure from
+	 *  @param player the player whose target home to measure to
+	 *  @return the hex distance from the cell to getTargetCorner(player)
+	 */
+	public static int getTargetDistance(int cell, int player) {
+		return TARGET_DISTANCE[player][cell];
+	}
+	
+	/** Gets the first goal line of a player that is not full, which is where the player's pieces should go next.
+	 *  This takes constant time unless the whole target home is full, when the lines past it are searched
+	 *  Precondition: player is between 1 and NUM_PLAYERS inclusive
+	 *  @param player the player whose goal lines to check
+	 *  @return the goal line, which is less than GOAL_ROWS if the target home is not full, or the number of goal
+	 *  lines of the player if every one is full
+	 */
+	public int getOpenGoalLine(int player) {
+		int line = Integer.numberOfTrailingZeros(~fullGoalRows[player]);
+		if (line < GOAL_ROWS)
+			return line;
+		while (line < NUM_GOAL_LINES[player] && (GOAL_LINE_LOW[player][line] & occupancyLow[0]) == 0 && 
+				(GOAL_LINE_HIGH[player][line] & occupancyHigh[0]) == 0)
+			line++;
+		return line;
+	}
+	
+	/** Checks if a piece has reached its final place: it is on a goal line no farther from the corner of the
+	 *  target home than the open goal line, so it never needs to move again
+	 *  Precondition: cell is a valid cell index and player is between 1 and NUM_PLAYERS inclusive
+	 *  @param cell the cell to check
+	 *  @param player the player whose goal lines to check
+	 *  @return true if the cell is occupied and settled, false otherwise
+	 */
+	public boolean isSettled(int cell, int player) {
+		int line = GOAL_LINE[player][cell];
+		return line >= 0 && !isEmpty(cell) && line <= getOpenGoalLine(player);
+	}
+	
+	/** Gets the empty cells of a player's open goal line, which are where the player's pieces should go next
+	 *  Precondition: player is between 1 and NUM_PLAYERS inclusive
+	 *  @param player the player whose goal lines to check
+	 *  @return the low word (cells 0-63) of the bitboard of the open targets
+	 */
+	public long getOpenTargetsLow(int player) {
+		int line = getOpenGoalLine(player);
+		return line == NUM_GOAL_LINES[player] ? 0 : GOAL_LINE_LOW[player][line] & occupancyLow[0];
+	}
+	
+	/** Gets the empty cells of a player's open goal line
+	 *  Precondition: player is between 1 and NUM_PLAYERS inclusive
+	 *  @param player the player whose goal lines to check
+	 *  @return the high word (cells 64-120) of the bitboard of the open targets
+	 */
+	public long getOpenTargetsHigh(int player) {
+		int line = getOpenGoalLine(player);
+		return line == NUM_GOAL_LINES[player] ? 0 : GOAL_LINE_HIGH[player][line] & occupancyHigh[0];
+	}
+	
+	/** Checks if a cell is in a home that a player should not enter (i.e. not the player's own home or the
+	 *  target home)
+	 *  Precondition: cell is a valid cell index and player is between 1 and NUM_PLAYERS inclusive
+	 *  @param cell the cell to check
+	 *  @param player the player whose piece would enter the cell
+	 *  @return true if the cell is in a home that the player should not enter, false otherwise
+	 */
+	public static boolean isNotAllowedHome(int cell, int player) {
+		return NOT_ALLOWED_HOME[player][cell];
+	}
+	
+	/** Gets the low word (cells 0 to 63) of the bitboard of the home a player is trying to reach
+	 *  @param player the player whose target home to get
+	 *  @return the low word of the target home
+	 */
+	public static long getTargetHomeLow(int player) {
+		return TARGET_HOME_LOW[player];
+	}
+	
+	/** Gets the high word (cells 64 to 120) of the bitboard of the home a player is trying to reach
+	 *  @param player the player whose target home to get
+	 *  @return the high word of the target home
+	 */
+	public static long getTargetHomeHigh(int player) {
+		return TARGET_HOME_HIGH[player];
+	}
+	
+	/** Gets the low word (cells 0 to 63) of the bitboard of the homes a player should not enter
+	 *  @param player the player whose forbidden homes to get
+	 *  @return the low word of the forbidden homes
+	 */
+	public static long getNotAllowedHomeLow(int player) {
+		return NOT_ALLOWED_HOME_LOW[player];
+	}
+	
+	/** Gets the high word (cells 64 to 120) of the bitboard of the homes a player should not enter
+	 *  @param player the player whose forbidden homes to get
+	 *  @return the high word of the forbidden homes
+	 */
+	public static long getNotAllowedHomeHigh(int player) {
+		return NOT_ALLOWED_HOME_HIGH[player];
+	}
+	
 	/** Checks if a spot is a valid move, counting other player's homes as invalid
 	 *  Precondition: originalRow, originalColumn, newRow, and newColumn are valid integers, and currentPlayer
 	 *  is a proper player number (between 1 to 6 inclusive)
@@ -301,8 +1101,7 @@ public class Board {
 	 */
 	public boolean moveNoOtherHomes(int originalRow, int originalColumn, int newRow, int newColumn, int player) {
 		if (isValidMoveNoOtherHomes(originalRow, originalColumn, newRow, newColumn, player)) {
-			board[newRow][newColumn] = board[originalRow][originalColumn];
-			board[originalRow][originalColumn] = 0;
+			movePiece(CELL_INDEX[originalRow][originalColumn], CELL_INDEX[newRow][newColumn]);
 			return true;
 		}
 		return false;
@@ -320,8 +1119,7 @@ public class Board {
 	 */
 	public boolean move(int originalRow, int originalColumn, int newRow, int newColumn) {
 		if (isValidMove(originalRow, originalColumn, newRow, newColumn)) {
-			board[newRow][newColumn] = board[originalRow][originalColumn];
-			board[originalRow][originalColumn] = 0;
+			movePiece(CELL_INDEX[originalRow][originalColumn], CELL_INDEX[newRow][newColumn]);
 			return true;
 		}
 		return false;
@@ -338,39 +1136,137 @@ public class Board {
 	 *  @return whether or not the move was successfully made (i.e. whether or not it is valid)
 	 */
 	public boolean moveNoErrorChecking(int originalRow, int originalColumn, int newRow, int newColumn) {
-		board[newRow][newColumn] = board[originalRow][originalColumn];
-		board[originalRow][originalColumn] = 0;
+		movePiece(CELL_INDEX[originalRow][originalColumn], CELL_INDEX[newRow][newColumn]);
 		return true;
 	}
 	
-	/** Initializes the board for a new game
-	 *  Precondition: BoardMap exists in the project folder and has been properly initialized
-	 *  Postcondition: the board has been initialized using the setup encoded in BoardMap
-	 *  @return whether or not the board was successfully initialized
+	/** Moves a piece in place (without checking if the move is valid) so that it can be taken back with unmakeMove
+	 *  Precondition: originalCell holds a piece and newCell is empty
+	 *  Postcondition: the piece has been moved and the move has been pushed onto the undo stack
+	 *  @param originalCell the original cell of the piece
+	 *  @param newCell the cell to move the piece to
 	 */
-	public boolean newGame() {
+	public void makeMove(int originalCell, int newCell) {
+		if (undoCount == undoStack.length)
+			undoStack = Arrays.copyOf(undoStack, undoStack.length * 2);
+		undoStack[undoCount++] = originalCell | newCell << 8 | sideToMove << 16;
+		movePiece(originalCell, newCell);
+	}
+	
+	/** Takes back the last move made with makeMove
+	 *  Precondition: there is at least one move on the undo stack
+	 *  Postcondition: the board is in the same state as before the last move was made
+	 */
+	public void unmakeMove() {
+		int move = undoStack[--undoCount];
+		int originalCell = move & 0xFF;
+		int newCell = (move >>> 8) & 0xFF;
+		setCell(originalCell, getPiece(newCell));
+		setCell(newCell, 0);
+		setSideToMove(move >>> 16);
+	}
+	
+	/** Reads a board in the BoardMap format: NUM_ROWS lines of NUM_COLUMNS characters, with 'x' for spots
+	 *  that are not on the board and a player number (or 0 for empty) for every hole
+	 *  Precondition: inFile is an initialized Scanner positioned at the start of the board
+	 *  Postcondition: NUM_ROWS lines have been read from inFile
+	 *  @param inFile the scanner to read the board from
+	 *  @return the board as a NUM_ROWS by NUM_COLUMNS array, with -1 for the spots that are not on the board
+	 *  @throws IllegalArgumentException if the board does not have the shape of a Chinese Checkers board
+	 */
+	public static int[][] readBoardMap(Scanner inFile) {
+		int[][] map = new int[NUM_ROWS][NUM_COLUMNS];
+		for (int row = 0; row < NUM_ROWS; row++) {
+			String boardRow = inFile.nextLine();
+			for (int column = 0; column < NUM_COLUMNS; column++) {
+				if (boardRow.charAt(column) == 'x')
+					map[row][column] = -1;
+				else
+					map[row][column] = Character.getNumericValue(boardRow.charAt(column));
+				
+				if ((map[row][column] == -1) != (CELL_INDEX[row][column] == -1) || map[row][column] > NUM_PLAYERS)
+					throw new IllegalArgumentException("Unexpected '" + boardRow.charAt(column) + "' at " + row + " " + column);
+			}
+		}
+		return map;
+	}
+	
+	/** Opens one of the program's data files, such as BoardMap, from the working directory, or from the classpath
+	 *  if it is not there, so that the program also finds it when it is run from outside the project folder
+	 *  @param fileName the name of the file
+	 *  @return a stream of the file's contents, which the caller must close
+	 *  @throws FileNotFoundException if the file is neither in the working directory nor on the classpath
+	 */
+	public static InputStream openDataFile(String fileName) throws FileNotFoundException {
+		File file = new File(fileName);
+		if (file.exists())
+			return new FileInputStream(file);
+		InputStream in = Board.class.getResourceAsStream("/" + fileName);
+		if (in == null)
+			throw new FileNotFoundException(fileName);
+		return in;
+	}
+	
+	/** Reads BoardMap from the working directory, or from the classpath if it is not there, the first time
+	 *  it is needed
+	 *  Precondition: BoardMap exists in the project folder or on the classpath and has been properly initialized
+	 *  Postcondition: boardMap and emptyBoardMap hold the setup encoded in BoardMap
+	 *  @return whether or not BoardMap was successfully read
+	 */
+	private static synchronized boolean loadBoardMap() {
+		if (boardMap != null)
+			return true;
 		try {
-			// Read the board map
-			File boardMap = new File("BoardMap");
-			Scanner inFile = new Scanner(boardMap);
-			
-			// Block off ineligible spots
-			for (int row = 0; row < NUM_ROWS; row++) {
-				String boardRow = inFile.nextLine();
-				for (int column = 0; column < NUM_COLUMNS; column++) {
-					if (boardRow.charAt(column) == 'x')
-						board[row][column] = -1;
-					else if (isTesting)
-						board[row][column] = Character.getNumericValue(boardRow.charAt(column));
-				}
+			Scanner inFile = new Scanner(openDataFile(BOARD_MAP_FILE));
+			int[][] map;
+			try {
+				map = readBoardMap(inFile);
+			}
+			finally {
+				inFile.close();
 			}
+			
+			emptyBoardMap = new int[NUM_ROWS][NUM_COLUMNS];
+			for (int row = 0; row < NUM_ROWS; row++)
+				for (int column = 0; column < NUM_COLUMNS; column++)
+					emptyBoardMap[row][column] = Math.min(map[row][column], 0);
+			boardMap = map;
 			return true;
 		}
 		catch (Exception e) {
 			e.printStackTrace();
+			return false;
+		}
+	}
+	
+	/** Initializes the board for a new game
+	 *  Precondition: BoardMap exists in the project folder (or on the classpath) and has been properly initialized
+	 *  Postcondition: the board has been initialized using the setup encoded in BoardMap, with every hole empty
+	 *  unless testing
+	 *  @return whether or not the board was successfully initialized
+	 */
+	public boolean newGame() {
+		if (!loadBoardMap()) {
 			System.out.println("Failed setup!");
 			return false;
 		}
+		
+		setup(isTesting ? boardMap : emptyBoardMap);
+		return true;
+	}
+	
+	/** Sets up the board with the pieces of a map, such as one returned by readBoardMap
+	 *  Precondition: map is a NUM_ROWS by NUM_COLUMNS array with -1 for the spots that are not on the board and a
+	 *  value from 0 to NUM_PLAYERS for every hole
+	 *  Postcondition: the board holds the pieces of map, player 1 is to move, and the undo stack is empty
+	 *  @param map the pieces to set up
+	 */
+	public void setup(int[][] map) {
+		for (int row = 0; row < NUM_ROWS; row++)
+			System.arraycopy(map[row], 0, board[row], 0, NUM_COLUMNS);
+		sideToMove = 1;
+		rebuildOccupancy();
+		undoCount = 0;
 	}
 	
 	/** Gets the board
@@ -1,4 +1,5 @@
 import java.io.BufferedReader;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
@@ -26,7 +27,21 @@ public class Client {
 	
 	public static final int CLIENT_MOVE = 1;
 	
-	private static final boolean OPENING_ENABLED = false;
+	// Whether to play moves from the opening book (OpeningBook.BOOK_FILE) in positions it has
+	private static final boolean BOOK_ENABLED = true;
+	// Whether to solve the end of the game exactly once few of our pieces are left outside the target home
+	private static final boolean ENDGAME_ENABLED = true;
+	// How the search engine scores positions, unless another of SearchEngine.EVALUATOR_NAMES is given on the
+	// command line
+	private static final String DEFAULT_EVALUATOR = "weighted";
+	// How the search engine models the other players (see SearchEngine)
+	private static final int SEARCH_MODE = SearchEngine.BEST_REPLY;
+	// Time the search may take for each move in milliseconds (kept well under the server's move timeout)
+	private static final long MOVE_TIME_LIMIT = 1000;
+	// Whether to choose moves by Monte Carlo tree search instead of alpha-beta search
+	private static final boolean MCTS_ENABLED = false;
+	// Whether the search engine keeps searching on a background thread while the other players move
+	private static final boolean PONDER_ENABLED = true;
 	
 	private InputStreamReader myStream;
 	private BufferedReader myReader;
@@ -36,16 +51,34 @@ public class Client {
 	private int player;
 	private int currentTurn;
 	private Algorithm algorithm;
+	private Engine engine;
+	private OpeningBook book;
+	private EndgameSolver endgame;
+	private Ponderer ponderer;
+	private String evaluatorName;
 	
 	private boolean isTimedOut = false;
 	
 	BoardDisplay boardWindow;
 	
-	/** Creates and sets up a new client
+	/** Creates and sets up a new client that scores positions with DEFAULT_EVALUATOR
 	 *  Precondition: The server for the Chinese Checkers game has been started
 	 *  Postcondition: A new client has been set up and is now waiting for instructions from the server
 	 */
 	public Client() {
+		this(DEFAULT_EVALUATOR);
+	}
+	
+	/** Creates and sets up a new client
+	 *  Precondition: The server for the Chinese Checkers game has been started, and evaluatorName is one of
+	 *  SearchEngine.EVALUATOR_NAMES
+	 *  Postcondition: A new client has been set up and is now waiting for instructions from the server
+	 *  @param evaluatorName how the search engine scores positions
+	 */
+	public Client(String evaluatorName) {
+		// Fail before connecting if the evaluator doesn't exist
+		SearchEngine.createEvaluator(evaluatorName);
+		this.evaluatorName = evaluatorName;
 		Scanner keyboard = new Scanner(System.in);
 		
 		// Ask for IP Address from user (in console)
@@ -66,6 +99,13 @@ public class Client {
 			
 			// Create board
 			board = new Board();
+			if (BOOK_ENABLED) {
+				try {
+					book = new OpeningBook(OpeningBook.BOOK_FILE);
+				} catch (FileNotFoundException e) {
+					System.out.println("No opening book");
+				}
+			}
 			boardWindow = new BoardDisplay(board.getBoard());
 
 			receiveFromServer();			
@@ -138,6 +178,10 @@ public class Client {
 			//	System.out.println("Invalid Move!");
 			// Assume the server will always return valid moves
 			board.moveNoErrorChecking(originalRow, originalColumn, newRow, newColumn);
+			if (engine != null)
+				engine.movePlayed(originalRow, originalColumn, newRow, newColumn);
+			if (ponderer != null)
+				ponderer.movePlayed(board, originalRow, originalColumn, newRow, newColumn);
 			boardWindow.refresh();
 			System.out.println("Move " + newRow + " " + newColumn);
 		}
@@ -149,6 +193,23 @@ public class Client {
 			boardWindow.setPlayer(player);
 			currentTurn = 1;
 			algorithm = new Algorithm(player);
+			if (ponderer != null)
+				ponderer.stop();
+			ponderer = null;
+			// The last game's MCTS threads would otherwise stay alive for the rest of the session
+			if (engine instanceof MctsEngine)
+				((MctsEngine)engine).shutdown();
+			if (MCTS_ENABLED)
+				engine = new MctsEngine(player, Runtime.getRuntime().availableProcessors(), MOVE_TIME_LIMIT, 0);
+			else {
+				SearchEngine searchEngine = new SearchEngine(player, SEARCH_MODE, SearchEngine.MAX_DEPTH, MOVE_TIME_LIMIT);
+				searchEngine.setEvaluator(SearchEngine.createEvaluator(evaluatorName));
+				if (PONDER_ENABLED)
+					ponderer = new Ponderer(searchEngine, player);
+				engine = searchEngine;
+			}
+			if (ENDGAME_ENABLED)
+				endgame = new EndgameSolver(player);
 			System.out.println("New Game");
 		}
 		else if (messageType == SERVER_PLACE_PIECE) {
@@ -156,20 +217,33 @@ public class Client {
 			int colour = Integer.parseInt(message[1]);
 			int row = Integer.parseInt(message[2]);
 			int column = Integer.parseInt(message[3]);
-			board.getBoard()[row][column] = colour;
+			board.placePiece(colour, row, column);
 			boardWindow.refresh();
 			System.out.println("Place Piece");
 		}
 		else if (messageType == SERVER_TURN) {
 			isTimedOut = false;
+			long turnStart = System.nanoTime();
+			board.setSideToMove(player);
+			// The engine can't be used until its search of the other players' turns has stopped
+			if (ponderer != null)
+				ponderer.stopForTurn(board);
 			// Make and send move
 			int[] move = null;
-			if (currentTurn <= 5 && OPENING_ENABLED)
-				move = opening(player, currentTurn, board);
+			if (book != null)
+				move = book.getMove(board);
+			if (move == null && endgame != null)
+				move = endgame.nextMove(board);
 			if (move == null)
+				move = engine.nextMove(board);
+			// Fall back to the greedy algorithm if the search finds nothing usable
+			if (move == null || !board.isValidMove(move[0], move[1], move[2], move[3]))
 				move = algorithm.nextMove(board);
 			if (move != null)
 				System.out.println(board.isValidMove(move[0], move[1], move[2], move[3]));
+			long turnTime = (System.nanoTime() - turnStart) / 1000000;
+			System.out.println("Turn used " + turnTime + " of " + MOVE_TIME_LIMIT + " ms (" + 
+					turnTime * 100 / MOVE_TIME_LIMIT + "%)");
 			// Check if move was timed out
 			try {
 				if (myReader.ready()){
@@ -238,277 +312,9 @@ public class Client {
 		this.player = player;
 	}
 
-	/** Author: Ray Luo 
-	 *  Tries to play the first 5 moves if possible
-	 *  Precondition it is before turn 5 and the moves are available
-	 *  @return The move that should be taken as an integer array (from,to)
-	 */
-	public static int[] opening(int player, int currentTurn, Board board) {
-		int[] nextMove = new int[4];
-		if (player == 1) {
-			if (currentTurn == 1) {
-				// y,x
-				nextMove[0] = 13;
-				nextMove[1] = 12;
-				nextMove[2] = 12;
-				nextMove[3] = 11;
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-				// Send move
-
-			} else if (currentTurn == 2) {
-				nextMove[0] = 15;
-				nextMove[1] = 12;
-				nextMove[2] = 11;
-				nextMove[3] = 10;
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-			} else if (currentTurn == 3) {
-				nextMove[0] = 14;
-				nextMove[1] = 10;
-				nextMove[2] = 10;
-				nextMove[3] = 10;
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-			} else if (currentTurn == 4) {
-				nextMove[0] = 10;
-				nextMove[1] = 10;
-				nextMove[2] = 9;
-				nextMove[3] = 9;
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-			} else if (currentTurn == 5) {
-				nextMove[0] = 16;
-				nextMove[1] = 12;
-				nextMove[2] = 8;
-				nextMove[3] = 8;
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-			}
-
-			 
-		}
-
-		else if (player == 2) {
-			if (currentTurn == 1) {
-				// y,x
-				nextMove[0] = 9;
-				nextMove[1] = 13;
-				nextMove[2] = 9;
-				nextMove[3] = 12;
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-				// Send move
-
-			} else if (currentTurn == 2) {
-				nextMove[0] = 11;
-				nextMove[1] = 15;
-				nextMove[2] = 9;
-				nextMove[3] = 11;
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-			} else if (currentTurn == 3) {
-				nextMove[0] = 12;
-				nextMove[1] = 14;
-				nextMove[2] = 8;
-				nextMove[3] = 10;
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-			} else if (currentTurn == 4) {
-				nextMove[0] = 8;
-				nextMove[1] = 10;
-				nextMove[2] = 8;
-				nextMove[3] = 9;
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-			} else if (currentTurn == 5) {
-				nextMove[0] = 12;
-				nextMove[1] = 16;
-				nextMove[2] = 8;
-				nextMove[3] = 8;
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-
-			}
-
-			 
-		}
-
-		else if (player == 3) {
-			if (currentTurn == 1) {
-				// y,x
-				nextMove[0] = 7;
-				nextMove[1] = 12;
-				nextMove[2] = 7;
-				nextMove[3] = 11;
-				// Send move
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-
-			} else if (currentTurn == 2) {
-				nextMove[0] = 5;
-				nextMove[1] = 12;
-				nextMove[2] = 7;
-				nextMove[3] = 10;
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-			} else if (currentTurn == 3) {
-				nextMove[0] = 4;
-				nextMove[1] = 10;
-				nextMove[2] = 10;
-				nextMove[3] = 10;
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-			} else if (currentTurn == 4) {
-				nextMove[0] = 4;
-				nextMove[1] = 10;
-				nextMove[2] = 8;
-				nextMove[3] = 10;
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-			} else if (currentTurn == 5) {
-				nextMove[0] = 12;
-				nextMove[1] = 16;
-				nextMove[2] = 8;
-				nextMove[3] = 8;
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-			}
-
-			 
-		} else if (player == 4) {
-			if (currentTurn == 1) {
-				// y,x
-				nextMove[0] = 3;
-				nextMove[1] = 7;
-				nextMove[2] = 4;
-				nextMove[3] = 7;
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-				// Send move
-
-			} else if (currentTurn == 2) {
-				nextMove[0] = 1;
-				nextMove[1] = 5;
-				nextMove[2] = 5;
-				nextMove[3] = 7;
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-			} else if (currentTurn == 3) {
-				nextMove[0] = 2;
-				nextMove[1] = 4;
-				nextMove[2] = 6;
-				nextMove[3] = 8;
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-			} else if (currentTurn == 4) {
-				nextMove[0] = 6;
-				nextMove[1] = 8;
-				nextMove[2] = 7;
-				nextMove[3] = 8;
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-			} else if (currentTurn == 5) {
-				nextMove[0] = 0;
-				nextMove[1] = 4;
-				nextMove[2] = 8;
-				nextMove[3] = 8;
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-
-			}
-
-			 
-		} else if (player == 5) {
-			if (currentTurn == 1) {
-				// y,x
-				nextMove[0] = 4;
-				nextMove[1] = 3;
-				nextMove[2] = 5;
-				nextMove[3] = 4;
-				// Send move
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-			} else if (currentTurn == 2) {
-				nextMove[0] = 4;
-				nextMove[1] = 1;
-				nextMove[2] = 6;
-				nextMove[3] = 5;
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-			} else if (currentTurn == 3) {
-				nextMove[0] = 6;
-				nextMove[1] = 2;
-				nextMove[2] = 6;
-				nextMove[3] = 6;
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-			} else if (currentTurn == 4) {
-				nextMove[0] = 6;
-				nextMove[1] = 6;
-				nextMove[2] = 7;
-				nextMove[3] = 7;
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-			} else if (currentTurn == 5) {
-				nextMove[0] = 4;
-				nextMove[1] = 0;
-				nextMove[2] = 8;
-				nextMove[3] = 8;
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-
-			}
-
-			 
-		} else if (player == 6) {
-			if (currentTurn == 1) {
-				// y,x
-				nextMove[0] = 9;
-				nextMove[1] = 4;
-				nextMove[2] = 9;
-				nextMove[3] = 5;
-				// Send move
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-			} else if (currentTurn == 2) {
-				nextMove[0] = 11;
-				nextMove[1] = 4;
-				nextMove[2] = 9;
-				nextMove[3] = 6;
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-			} else if (currentTurn == 3) {
-				nextMove[0] = 12;
-				nextMove[1] = 6;
-				nextMove[2] = 8;
-				nextMove[3] = 6;
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-			} else if (currentTurn == 4) {
-				nextMove[0] = 8;
-				nextMove[1] = 6;
-				nextMove[2] = 8;
-				nextMove[3] = 7;
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-			} else if (currentTurn == 5) {
-				nextMove[0] = 12;
-				nextMove[1] = 4;
-				nextMove[2] = 8;
-				nextMove[3] = 8;
-				if (board.isValidMove(nextMove[0], nextMove[1], nextMove[2], nextMove[3]))
-					return nextMove;
-
-			}
-	 
-		}
-		return null;
-	}
-	
 	public static void main(String[] args) {
 		// Create the client and go
-		Client client = new Client();
+		Client client = new Client(args.length > 0 ? args[0] : DEFAULT_EVALUATOR);
 	}
 
 }
\ No newline at end of file
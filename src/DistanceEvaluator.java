@@ -0,0 +1,56 @@
+/** The Distance Evaluator Class
+ *  Scores each player by the total number of walks between its pieces and the far corner of its target home.
+ *  This is the cheapest evaluator: each move changes the total by the difference of two table lookups
+ */
+
+public class DistanceEvaluator implements Evaluator {
+
+	// The most one move can take a piece towards its target corner (the length of the board)
+	public static final int MAX_GAIN = 16;
+
+	private int[] distanceSum = new int[Board.NUM_PLAYERS + 1];
+
+	/** Adds up each player's distances on a board
+	 *  Postcondition: getCost gives each player's total distance on the board
+	 *  @param board the position to score (it is not changed)
+	 */
+	public void reset(Board board) {
+		for (int player = 1; player <= Board.NUM_PLAYERS; player++) {
+			distanceSum[player] = 0;
+			for (int piece = 0; piece < board.getPieceCount(player); piece++)
+				distanceSum[player] += Board.getTargetDistance(board.getPieceCell(player, piece), player);
+		}
+	}
+
+	/** Updates the mover's total distance for one of its pieces moving
+	 *  @param mover the player whose piece moves
+	 *  @param from the cell the piece moves from
+	 *  @param to the cell the piece moves to
+	 */
+	public void movePiece(int mover, int from, int to) {
+		distanceSum[mover] += Board.getTargetDistance(to, mover) - Board.getTargetDistance(from, mover);
+	}
+
+	/** Gets a player's total distance
+	 *  @param player the player to score
+	 *  @return the number of walks between the player's pieces and its target corner
+	 */
+	public int getCost(int player) {
+		return distanceSum[player];
+	}
+
+	/** Gets the most one move can take a piece towards its target corner
+	 *  @return MAX_GAIN
+	 */
+	public int getMaxGain() {
+		return MAX_GAIN;
+	}
+
+	/** Gets the highest total distance a player can have
+	 *  @return the total if every piece were as far as a piece can be from the target corner
+	 */
+	public int getMaxCost() {
+		return Board.PIECES_PER_PLAYER * MAX_GAIN;
+	}
+
+}
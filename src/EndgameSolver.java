@@ -0,0 +1,299 @@
+/** The Endgame Solver Class
+ *  Finds the fewest of our own moves (up to MAX_PLAN_LENGTH) that get every one of our pieces into the target
+ *  home, once few enough of them are left outside it. The other players' pieces are treated as fixed. The search
+ *  is iterative-deepening A* over all of our own move sequences, including those that take a piece out of the
+ *  target home to clear the way and bring it back: the number of pieces still outside, plus one if none of them
+ *  can get in with its next move, is a lower bound on the moves left. Positions that cannot be finished within
+ *  the moves left are kept in a transposition table, which is kept between turns. There is no limit on the
+ *  positions searched, so the plan found is always one of the shortest; with at most DEFAULT_MAX_OUTSIDE pieces
+ *  outside the search takes well under the client's time limit (at most 2123943 positions, 0.4 seconds, in 60
+ *  greedy self-play games).
+ *  The plan found is kept between turns too. Other players' moves can open shorter ways in or block the plan, so
+ *  the position is searched again each turn, but while the rest of the plan can still be played its length
+ *  bounds the search
+ */
+
+public class EndgameSolver implements Engine {
+
+	// The most pieces that may be outside the target home for the solver to take over (with three, a search
+	// could take over a second)
+	public static final int DEFAULT_MAX_OUTSIDE = 2;
+	// The longest plan searched for
+	public static final int MAX_PLAN_LENGTH = 24;
+
+	private static final int TABLE_SIZE_BITS = 18;
+	// Added to the score of a move that takes a piece into the target home, and taken from a move within it (and
+	// twice from a move out of it)
+	private static final int ENTER_BONUS = 64;
+
+	private int player;
+	private int maxOutside;
+	private TranspositionTable table;
+
+	// The copy of the board being searched, and the number of our pieces outside the target home on it
+	private Board board;
+	private int outside;
+
+	// The moves generated at each depth, their ordering scores, the moves being tried at each depth, and the
+	// length of the line that fills the target home
+	private int[][] moves = new int[MAX_PLAN_LENGTH][Board.MAX_MOVES];
+	private int[] scores = new int[Board.MAX_MOVES];
+	private int[] line = new int[MAX_PLAN_LENGTH];
+	private int lineLength;
+
+	private long nodes;
+	// Whether each move prints the plan found
+	private boolean isReporting = true;
+
+	// The last plan found, and the bitboards of our pieces before each of its moves
+	private int[] plan = new int[MAX_PLAN_LENGTH];
+	private long[] planLow = new long[MAX_PLAN_LENGTH];
+	private long[] planHigh = new long[MAX_PLAN_LENGTH];
+	private int planLength;
+	private int[] path = new int[Board.NUM_CELLS];
+
+	/** Creates an endgame solver for a game
+	 *  Precondition: player is between 1 and Board.NUM_PLAYERS inclusive and maxOutside >= 1
+	 *  Postcondition: a solver that takes over when at most maxOutside pieces are outside the target home has
+	 *  been created
+	 *  @param player the player to choose moves for
+	 *  @param maxOutside the most pieces that may be outside the target home for the solver to search (each one
+	 *  more can make the search many times longer)
+	 */
+	public EndgameSolver(int player, int maxOutside) {
+		this.player = player;
+		this.maxOutside = maxOutside;
+		table = new TranspositionTable(TABLE_SIZE_BITS);
+	}
+
+	/** Creates an endgame solver for a game that takes over with DEFAULT_MAX_OUTSIDE pieces outside
+	 *  @param player the player to choose moves for
+	 */
+	public EndgameSolver(int player) {
+		this(player, DEFAULT_MAX_OUTSIDE);
+	}
+
+	/** Finds the first move of the shortest way to get every one of our pieces into the target home
+	 *  @param board the current state of the game (it is not changed)
+	 *  @return the row and column of the piece to move followed by the row and column of its destination, or
+	 *  null if too many pieces are outside the target home, or it cannot be filled within MAX_PLAN_LENGTH moves
+	 */
+	public int[] nextMove(Board board) {
+		this.board = new Board(board);
+		this.board.setSideToMove(player);
+		outside = 0;
+		for (int piece = 0; piece < this.board.getPieceCount(player); piece++)
+			if (!Board.isTargetHome(this.board.getPieceCell(player, piece), player))
+				outside++;
+		if (outside == 0 || outside > maxOutside || !canFill())
+			return null;
+
+		long start = System.nanoTime();
+		nodes = 0;
+		// The rest of the last plan, if it can still be played, is as long as the new one can be
+		int move = solve(followPlan() != 0 ? planLength : MAX_PLAN_LENGTH);
+		long time = System.nanoTime() - start;
+		if (isReporting)
+			System.out.println("Endgame: " + (move == 0 ? "no plan" : "plan of " + planLength + " moves") + ", " + nodes +
+					" nodes in " + time / 1000000 + " ms");
+
+		if (move == 0)
+			return null;
+		int from = Board.getMoveFrom(move), to = Board.getMoveTo(move);
+		return new int[] { Board.getRow(from), Board.getColumn(from), Board.getRow(to), Board.getColumn(to) };
+	}
+
+	/** Does nothing, since the plan is checked against the board before each move
+	 *  @param originalRow the row of the piece that moved
+	 *  @param originalColumn the column of the piece that moved
+	 *  @param newRow the row the piece moved to
+	 *  @param newColumn the column the piece moved to
+	 */
+	public void movePlayed(int originalRow, int originalColumn, int newRow, int newColumn) {
+	}
+
+	/** Turns the line each move prints on or off (for running many games at once)
+	 *  Postcondition: later moves print their plans as chosen
+	 *  @param isEnabled whether to print the plan found for each move
+	 */
+	public void setReporting(boolean isEnabled) {
+		isReporting = isEnabled;
+	}
+
+	/** Gets the number of positions searched for the last move
+	 *  @return the number of positions
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/** Checks that no other player's pieces are taking up the room our pieces need in the target home
+	 *  @return true if the target home has a free cell for each of our pieces, false otherwise
+	 */
+	private boolean canFill() {
+		long freeLow = Board.getTargetHomeLow(player) & (board.getOccupancyLow(0) | board.getOccupancyLow(player));
+		long freeHigh = Board.getTargetHomeHigh(player) & (board.getOccupancyHigh(0) | board.getOccupancyHigh(player));
+		return Long.bitCount(freeLow) + Long.bitCount(freeHigh) >= board.getPieceCount(player);
+	}
+
+	/** Finds where our pieces are in the last plan, and checks that the rest of it can still be played
+	 *  Postcondition: if the plan can be followed, it has been shifted so that it starts at the current position,
+	 *  otherwise it has been emptied
+	 *  @return the next move of the plan, or 0 if it cannot be followed
+	 */
+	private int followPlan() {
+		long low = board.getOccupancyLow(player), high = board.getOccupancyHigh(player);
+		int start = 0;
+		while (start < planLength && (planLow[start] != low || planHigh[start] != high))
+			start++;
+		if (start == planLength) {
+			planLength = 0;
+			return 0;
+		}
+
+		// Play the rest of the plan on the board, since other players' moves may have blocked it
+		int played = 0;
+		boolean isPlayable = true;
+		for (int i = start; i < planLength && isPlayable; i++) {
+			int from = Board.getMoveFrom(plan[i]), to = Board.getMoveTo(plan[i]);
+			isPlayable = board.getPiece(from) == player && board.getPath(from, to, path) > 0;
+			if (isPlayable) {
+				board.makeMove(from, to);
+				played++;
+			}
+		}
+		boolean isFilled = true;
+		for (int piece = 0; piece < board.getPieceCount(player); piece++)
+			isFilled &= Board.isTargetHome(board.getPieceCell(player, piece), player);
+		for (int i = 0; i < played; i++)
+			board.unmakeMove();
+		if (!isPlayable || !isFilled) {
+			planLength = 0;
+			return 0;
+		}
+
+		planLength -= start;
+		System.arraycopy(plan, start, plan, 0, planLength);
+		System.arraycopy(planLow, start, planLow, 0, planLength);
+		System.arraycopy(planHigh, start, planHigh, 0, planLength);
+		return plan[0];
+	}
+
+	/** Searches with a bound on the number of moves that starts at the number of pieces outside the target home
+	 *  and goes up by one each iteration, so the first plan found is one of the shortest
+	 *  Postcondition: if a plan was found, it has replaced the last plan
+	 *  @param maxBound the most moves the plan may have
+	 *  @return the first move of the plan, or 0 if none was found
+	 */
+	private int solve(int maxBound) {
+		for (int bound = outside; bound <= maxBound; bound++) {
+			if (search(0, bound)) {
+				// Replay the plan to record where our pieces are before each move
+				planLength = lineLength;
+				for (int i = 0; i < planLength; i++) {
+					plan[i] = line[i];
+					planLow[i] = board.getOccupancyLow(player);
+					planHigh[i] = board.getOccupancyHigh(player);
+					board.makeMove(Board.getMoveFrom(plan[i]), Board.getMoveTo(plan[i]));
+				}
+				for (int i = 0; i < planLength; i++)
+					board.unmakeMove();
+				return plan[0];
+			}
+		}
+		planLength = 0;
+		return 0;
+	}
+
+	/** Searches for a way to get every piece into the target home within a number of moves
+	 *  Postcondition: if one was found, its moves are in line and its length is in lineLength
+	 *  @param depth the number of moves made so far
+	 *  @param bound the most moves the plan may have
+	 *  @return true if a plan was found, false otherwise
+	 */
+	private boolean search(int depth, int bound) {
+		if (outside == 0) {
+			lineLength = depth;
+			return true;
+		}
+		nodes++;
+		// Each piece outside the target home needs at least one more move, and one more besides if none of them
+		// can get in with its next move
+		if (depth + outside > bound || (depth + outside == bound && !canEnter()))
+			return false;
+		long key = board.getHash();
+		long entry = table.probe(key);
+		if (entry != TranspositionTable.NOT_FOUND && TranspositionTable.getDepth(entry) >= bound - depth)
+			return false;
+
+		int count = orderMoves(depth);
+		for (int i = 0; i < count; i++) {
+			int move = moves[depth][i];
+			int from = Board.getMoveFrom(move), to = Board.getMoveTo(move);
+			int change = (Board.isTargetHome(to, player) ? 0 : 1) - (Board.isTargetHome(from, player) ? 0 : 1);
+			board.makeMove(from, to);
+			board.setSideToMove(player);
+			outside += change;
+			line[depth] = move;
+			boolean isSolved = search(depth + 1, bound);
+			outside -= change;
+			board.unmakeMove();
+			if (isSolved)
+				return true;
+		}
+		// No plan from here fits in the moves left
+		table.store(key, bound - depth, 0, TranspositionTable.LOWER_BOUND, 0);
+		return false;
+	}
+
+	/** Checks whether any of our pieces outside the target home can get into it in one move
+	 *  @return true if one of them has a destination in the target home, false otherwise
+	 */
+	private boolean canEnter() {
+		long targetLow = Board.getTargetHomeLow(player), targetHigh = Board.getTargetHomeHigh(player);
+		for (int piece = 0; piece < board.getPieceCount(player); piece++) {
+			int cell = board.getPieceCell(player, piece);
+			if (!Board.isTargetHome(cell, player) && ((board.getDestinationsLow(cell) & targetLow) != 0 ||
+					(board.getDestinationsHigh(cell) & targetHigh) != 0))
+				return true;
+		}
+		return false;
+	}
+
+	/** Generates our moves at a depth and sorts them so moves into the target home come first, then moves outside
+	 *  it, moves within it and last moves out of it, each by how much closer they get to its corner. Of the
+	 *  shortest plans, this finds one that moves the pieces outside first, which other players' moves are less
+	 *  likely to spoil
+	 *  Postcondition: the moves are at the start of moves[depth] in the order to search them
+	 *  @param depth the number of moves made so far
+	 *  @return the number of moves
+	 */
+	private int orderMoves(int depth) {
+		int[] list = moves[depth];
+		int numMoves = board.generateMoves(player, list);
+		int count = 0;
+		for (int i = 0; i < numMoves; i++) {
+			int move = list[i];
+			int from = Board.getMoveFrom(move), to = Board.getMoveTo(move);
+			boolean isFromTarget = Board.isTargetHome(from, player), isToTarget = Board.isTargetHome(to, player);
+			int score = Board.getTargetDistance(from, player) - Board.getTargetDistance(to, player);
+			if (isFromTarget && !isToTarget)
+				score -= 2 * ENTER_BONUS;
+			else if (isFromTarget)
+				score -= ENTER_BONUS;
+			else if (isToTarget)
+				score += ENTER_BONUS;
+			// Insertion sort, highest score first
+			int j = count++;
+			while (j > 0 && scores[j - 1] < score) {
+				list[j] = list[j - 1];
+				scores[j] = scores[j - 1];
+				j--;
+			}
+			list[j] = move;
+			scores[j] = score;
+		}
+		return count;
+	}
+
+}
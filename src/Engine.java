@@ -0,0 +1,26 @@
+/** The Engine Interface
+ *  Something that chooses moves for one player of a Chinese Checkers game
+ */
+
+public interface Engine {
+
+	/** Chooses the next move to make
+	 *  Precondition: board is the current state of the game and it is this engine's player's turn
+	 *  Postcondition: the move has been returned and board is unchanged
+	 *  @param board the current state of the game
+	 *  @return the row and column of the piece to move followed by the row and column of its destination,
+	 *  or null if there is no move
+	 */
+	int[] nextMove(Board board);
+
+	/** Tells the engine about a move made in the game by any player, including its own
+	 *  Precondition: the move has just been made on the game's board
+	 *  Postcondition: the engine has updated anything it keeps between moves
+	 *  @param originalRow the row of the piece that moved
+	 *  @param originalColumn the column of the piece that moved
+	 *  @param newRow the row the piece moved to
+	 *  @param newColumn the column the piece moved to
+	 */
+	void movePlayed(int originalRow, int originalColumn, int newRow, int newColumn);
+
+}
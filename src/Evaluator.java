@@ -0,0 +1,43 @@
+/** The Evaluator Interface
+ *  Scores how far each player is from finishing, for SearchEngine. The scores are kept up to date one piece move
+ *  at a time as the search makes and takes back moves, so no position is scored from scratch except the root.
+ *  An evaluator may keep the board passed to reset and look at it in movePiece, which is only called once the
+ *  board shows the piece on its new cell, so a cost can depend on the pieces around a player's pieces too
+ */
+
+public interface Evaluator {
+
+	/** Scores every player's pieces on a board from scratch
+	 *  Postcondition: getCost gives each player's cost on the board
+	 *  @param board the position to score (it is not changed, but the caller goes on changing it move by move)
+	 */
+	void reset(Board board);
+
+	/** Updates the scores for one of a player's pieces moving. A move is taken back by moving the piece from
+	 *  its destination to where it started
+	 *  Precondition: the board passed to reset has just had the mover's piece moved from from to to
+	 *  Postcondition: every player's cost is its cost with the piece on to
+	 *  @param mover the player whose piece moves
+	 *  @param from the cell the piece moves from
+	 *  @param to the cell the piece moves to
+	 */
+	void movePiece(int mover, int from, int to);
+
+	/** Gets a player's cost, which is lower the closer the player is to finishing
+	 *  @param player the player to score
+	 *  @return a cost between 0 and getMaxCost() inclusive
+	 */
+	int getCost(int player);
+
+	/** Gets the most a player's cost can drop in one move, which the search uses to prune lines that cannot
+	 *  catch up
+	 *  @return the largest drop in cost one move can make
+	 */
+	int getMaxGain();
+
+	/** Gets the highest cost a player can have
+	 *  @return the highest cost
+	 */
+	int getMaxCost();
+
+}
@@ -0,0 +1,44 @@
+/** The Ladder Evaluator Class
+ *  Scores each player by how far its pieces are from having a jump towards the far corner of its target home.
+ *  A piece with a piece beside it and an empty cell beyond, in a direction that leads towards the corner, has the
+ *  first rung of a ladder: a jump there gains two walks, and may chain on to more. Each piece outside the target
+ *  home costs 2 less the most a single jump can take it towards the corner, so the cost drops as the pieces line
+ *  up to jump over one another. It is meant to be weighed against the total distance in a WeightedEvaluator
+ */
+
+public class LadderEvaluator extends NeighbourhoodEvaluator {
+
+	// The most a single jump (two cells in a straight line) can take a piece towards its target corner
+	private static final int MAX_JUMP_GAIN = 2;
+
+	/** Scores how far a piece is from having a jump towards its target corner
+	 *  @param board the position the piece is in
+	 *  @param cell the cell of the piece
+	 *  @param owner the player the piece belongs to
+	 *  @return 0 for a piece in its target home, or MAX_JUMP_GAIN less the most one jump gains otherwise
+	 */
+	protected int scorePiece(Board board, int cell, int owner) {
+		if (Board.isTargetHome(cell, owner))
+			return 0;
+		int distance = Board.getTargetDistance(cell, owner);
+		int bestGain = 0;
+		for (int direction = Board.DIRECTION_SOUTH; direction <= Board.DIRECTION_WEST; direction++) {
+			int adjacent = Board.getAdjacentCell(cell, direction);
+			if (adjacent < 0 || board.isEmpty(adjacent))
+				continue;
+			int landing = Board.getJumpCell(cell, direction);
+			if (landing < 0 || !board.isEmpty(landing) || Board.isNotAllowedHome(landing, owner))
+				continue;
+			bestGain = Math.max(bestGain, distance - Board.getTargetDistance(landing, owner));
+		}
+		return MAX_JUMP_GAIN - bestGain;
+	}
+
+	/** Gets the highest cost a player can have
+	 *  @return the cost if no piece had a jump towards the target corner
+	 */
+	public int getMaxCost() {
+		return Board.PIECES_PER_PLAYER * MAX_JUMP_GAIN;
+	}
+
+}
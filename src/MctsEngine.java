@@ -0,0 +1,490 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** The MCTS Engine Class
+ *  Chooses moves by Monte Carlo tree search. Every seat moves in turn order and each player picks the moves that
+ *  are best for itself by UCT. Each playout plays a few rounds of mostly greedy moves and is then scored by how far
+ *  each player is ahead of the average distance to its target. Several threads grow one tree, adding a virtual
+ *  loss to the nodes they are searching below so that the others spread out. The tree is kept between turns and
+ *  follows the moves passed to movePlayed, but little of it is ever used again: with three players our next turn
+ *  is three plies below the root, and only a few of the playouts went down the line that was actually played
+ *  (in Benchmark about 0.05% of them are reused, e.g. 3704 playouts, 296 through our move, 22 through the next
+ *  player's reply and 4 through the one after). The engine's threads are only stopped by shutdown
+ */
+
+public class MctsEngine implements Engine {
+
+	public static final int DEFAULT_PLAYOUTS = 20000;
+
+	// Exploration constant of UCT
+	private static final double EXPLORATION = 0.7;
+	// Visits added to a node while a thread is searching below it
+	private static final int VIRTUAL_LOSS = 3;
+	// Number of moves by every player that each playout plays before it is scored
+	private static final int PLAYOUT_ROUNDS = 2;
+	// Chance that a playout move is random rather than the move that gains the most distance
+	private static final double RANDOM_MOVE_CHANCE = 0.2;
+	// How far a player's distance sum must be below the average for a reward of 1 (or above it for 0)
+	private static final int REWARD_RANGE = 32;
+	// Rewards are added up in fixed point, with REWARD_SCALE standing for 1
+	private static final long REWARD_SCALE = 1 << 16;
+	// Rough size in bytes of a node, not counting its arrays, for reporting the tree's memory use
+	private static final int NODE_BYTES = 48;
+
+	/** A position in the tree, reached by a move from its parent */
+	private static class Node {
+
+		// The move that leads here (0 for the root), the seat in the turn order of the player to move here, and the
+		// hash of the position with that player to move
+		final int move;
+		final int seat;
+		final long hash;
+
+		// The moves from here, best gain first, and the children made for the first expanded of them (a child may
+		// still be null while another thread creates it)
+		int[] moves;
+		Node[] children;
+		volatile int expanded;
+
+		// Visits (including virtual losses in progress), the playouts that have finished below here, and total reward
+		// of the player who made the move here
+		volatile int visits;
+		volatile int completed;
+		volatile long reward;
+
+		Node(int move, int seat, long hash) {
+			this.move = move;
+			this.seat = seat;
+			this.hash = hash;
+		}
+	}
+
+	private int player;
+	private int threads;
+	private long timeLimit;
+	private int maxPlayouts;
+	private ExecutorService executor;
+
+	// The players in the game in turn order starting with us, and the order the tree was built for
+	private int[] order = new int[0];
+	private Node root;
+
+	// The position being searched, when the search has to stop (in System.nanoTime), and the playouts started
+	private Board rootBoard;
+	private long deadline;
+	private AtomicLong playouts = new AtomicLong();
+
+	/** Creates an MCTS engine for a game
+	 *  Precondition: player is between 1 and Board.NUM_PLAYERS inclusive, threads >= 1, timeLimit >= 0 and
+	 *  maxPlayouts >= 0, and at least one of timeLimit and maxPlayouts is not 0
+	 *  Postcondition: an engine that searches with threads threads until either limit is reached has been created
+	 *  @param player the player to choose moves for
+	 *  @param threads the number of threads to search with
+	 *  @param timeLimit the time each move may take in milliseconds, or 0 for no limit
+	 *  @param maxPlayouts the number of playouts for each move, or 0 for no limit
+	 */
+	public MctsEngine(int player, int threads, long timeLimit, int maxPlayouts) {
+		this.player = player;
+		this.threads = threads;
+		this.timeLimit = timeLimit;
+		this.maxPlayouts = maxPlayouts;
+		executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				// The search threads must not keep the program running once the game is over
+				Thread thread = new Thread(runnable, "MCTS");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/** Searches until the time or playout limit and returns the move that was visited most
+	 *  @param board the current state of the game (it is not changed)
+	 *  @return the row and column of the piece to move followed by the row and column of its destination,
+	 *  or null if there is no move
+	 */
+	public int[] nextMove(Board board) {
+		rootBoard = new Board(board);
+		rootBoard.setSideToMove(player);
+
+		// Players that have already finished take no part in the search
+		int[] newOrder = new int[Board.NUM_PLAYERS];
+		int numPlayers = 0;
+		for (int seat = 0; seat < Board.NUM_PLAYERS; seat++) {
+			int colour = (player + seat - 1) % Board.NUM_PLAYERS + 1;
+			if (colour == player || (rootBoard.getPieceCount(colour) > 0 && !isFinished(rootBoard, colour)))
+				newOrder[numPlayers++] = colour;
+		}
+		newOrder = Arrays.copyOf(newOrder, numPlayers);
+
+		// Keep the tree if the moves played since the last search led to this position
+		long reused = 0;
+		if (root != null && root.seat == 0 && root.hash == rootBoard.getHash() && Arrays.equals(order, newOrder))
+			reused = root.visits;
+		else
+			root = new Node(0, 0, rootBoard.getHash());
+		order = newOrder;
+
+		long start = System.nanoTime();
+		deadline = timeLimit > 0 ? start + timeLimit * 1000000 : Long.MAX_VALUE;
+		playouts.set(0);
+		Future<?>[] futures = new Future<?>[threads];
+		for (int i = 0; i < threads; i++)
+			futures[i] = executor.submit(new Worker(i));
+		for (int i = 0; i < threads; i++) {
+			try {
+				futures[i].get();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			catch (ExecutionException e) {
+				e.printStackTrace();
+			}
+		}
+		long time = System.nanoTime() - start;
+
+		Node best = null;
+		for (int i = 0; i < root.expanded; i++) {
+			Node child = root.children[i];
+			if (child != null && (best == null || child.visits > best.visits))
+				best = child;
+		}
+		long completed = Math.min(playouts.get(), maxPlayouts > 0 ? maxPlayouts : Long.MAX_VALUE);
+		long[] size = new long[2];
+		measure(root, size);
+		System.out.println("MCTS: " + completed + " playouts in " + time / 1000000 + " ms (" +
+				(long)(completed / (time / 1e9)) + " playouts/sec), " + reused + " visits reused, tree " + size[0] +
+				" nodes (~" + size[1] / 1024 + " KB)" + (best == null ? "" : ", best move visited " + best.visits +
+				" times with reward " + String.format("%.3f", (double)best.reward / REWARD_SCALE / best.visits)));
+
+		if (best == null)
+			return null;
+		int from = Board.getMoveFrom(best.move), to = Board.getMoveTo(best.move);
+		return new int[] { Board.getRow(from), Board.getColumn(from), Board.getRow(to), Board.getColumn(to) };
+	}
+
+	/** Stops the search threads. Must be called once the engine is no longer needed, or its threads stay alive
+	 *  until the program ends
+	 *  Precondition: no search is running
+	 *  Postcondition: the threads have been told to stop, and the engine must not be used again
+	 */
+	public void shutdown() {
+		executor.shutdown();
+		root = null;
+	}
+
+	/** Moves the root of the tree down to the child for a move, making the child if the move has not been expanded
+	 *  yet, or drops the tree if the move was not made by the player to move at the root
+	 *  Precondition: no search is running
+	 *  @param originalRow the row of the piece that moved
+	 *  @param originalColumn the column of the piece that moved
+	 *  @param newRow the row the piece moved to
+	 *  @param newColumn the column the piece moved to
+	 */
+	public void movePlayed(int originalRow, int originalColumn, int newRow, int newColumn) {
+		if (root == null)
+			return;
+		int from = Board.getCell(originalRow, originalColumn), to = Board.getCell(newRow, newColumn);
+		if (rootBoard.getPiece(from) != order[root.seat]) {
+			root = null;
+			return;
+		}
+		int move = Board.encodeMove(from, to);
+		int seat = (root.seat + 1) % order.length;
+		rootBoard.makeMove(from, to);
+		rootBoard.setSideToMove(order[seat]);
+		for (int i = 0; i < root.expanded; i++)
+			if (root.children[i] != null && root.children[i].move == move) {
+				root = root.children[i];
+				return;
+			}
+		// The move was never tried, so there is nothing below it yet, but the tree stays in step with the game
+		root = new Node(move, seat, rootBoard.getHash());
+	}
+
+	/** Counts the nodes under a node and estimates the memory they use
+	 *  @param node the node to start at
+	 *  @param size the number of nodes and bytes found so far, which are added to
+	 */
+	private static void measure(Node node, long[] size) {
+		size[0]++;
+		size[1] += NODE_BYTES;
+		if (node.moves != null)
+			size[1] += 2 * (16 + 4L * node.moves.length);
+		for (int i = 0; i < node.expanded; i++)
+			if (node.children[i] != null)
+				measure(node.children[i], size);
+	}
+
+	/** Checks whether a player has all its pieces in its target home
+	 *  @param board the board to check
+	 *  @param colour the player to check
+	 *  @return true if the player has finished, false otherwise
+	 */
+	private static boolean isFinished(Board board, int colour) {
+		for (int piece = 0; piece < board.getPieceCount(colour); piece++)
+			if (!Board.isTargetHome(board.getPieceCell(colour, piece), colour))
+				return false;
+		return true;
+	}
+
+	/** One search thread, which plays out from the root on its own copy of the board */
+	private class Worker implements Runnable {
+
+		private Board board;
+		private Random random;
+
+		// The distance and target counts of each player's pieces on the board
+		private int[] distanceSum = new int[Board.NUM_PLAYERS + 1];
+		private int[] piecesInTarget = new int[Board.NUM_PLAYERS + 1];
+		private int[] pieceCount = new int[Board.NUM_PLAYERS + 1];
+
+		// The nodes of the current iteration from the root down, and the moves made on the board since the root
+		private Node[] path = new Node[64];
+		private int pathLength;
+		private int[] movesMade = new int[64];
+		private int[] moversMade = new int[64];
+		private int numMade;
+
+		private int[] moveBuffer = new int[Board.MAX_MOVES];
+		private long[] rewards = new long[Board.NUM_PLAYERS + 1];
+
+		/** @param index the number of the thread, which seeds its random playouts */
+		Worker(int index) {
+			board = new Board(rootBoard);
+			random = new Random(index);
+			for (int i = 0; i < order.length; i++) {
+				int colour = order[i];
+				pieceCount[colour] = board.getPieceCount(colour);
+				for (int piece = 0; piece < pieceCount[colour]; piece++) {
+					int cell = board.getPieceCell(colour, piece);
+					distanceSum[colour] += Board.getTargetDistance(cell, colour);
+					if (Board.isTargetHome(cell, colour))
+						piecesInTarget[colour]++;
+				}
+			}
+		}
+
+		public void run() {
+			while (System.nanoTime() < deadline && (maxPlayouts == 0 || playouts.getAndIncrement() < maxPlayouts)) {
+				if (maxPlayouts == 0)
+					playouts.incrementAndGet();
+				iterate();
+			}
+		}
+
+		/** Walks down the tree by UCT, adds a child, plays out from it and adds the result to the path */
+		private void iterate() {
+			Node node = root;
+			pathLength = 0;
+			numMade = 0;
+			enter(node);
+			while (!isGameOver()) {
+				int index = claimExpansion(node);
+				if (index >= 0) {
+					play(node.moves[index], node.seat);
+					Node child = new Node(node.moves[index], (node.seat + 1) % order.length, board.getHash());
+					node.children[index] = child;
+					enter(child);
+					break;
+				}
+				Node child = select(node);
+				if (child == null)
+					break;
+				play(child.move, node.seat);
+				enter(child);
+				node = child;
+			}
+
+			playout(path[pathLength - 1].seat);
+			score();
+			while (numMade > 0) {
+				numMade--;
+				board.unmakeMove();
+				updateCounts(moversMade[numMade], Board.getMoveTo(movesMade[numMade]),
+						Board.getMoveFrom(movesMade[numMade]));
+			}
+
+			// Replace the virtual losses with the real result
+			for (int i = 0; i < pathLength; i++) {
+				Node pathNode = path[i];
+				synchronized (pathNode) {
+					pathNode.visits += 1 - VIRTUAL_LOSS;
+					pathNode.completed++;
+					if (i > 0)
+						pathNode.reward += rewards[order[path[i - 1].seat]];
+				}
+			}
+		}
+
+		/** Adds a node to the path and a virtual loss to the node */
+		private void enter(Node node) {
+			if (pathLength == path.length)
+				path = Arrays.copyOf(path, pathLength * 2);
+			path[pathLength++] = node;
+			synchronized (node) {
+				node.visits += VIRTUAL_LOSS;
+			}
+		}
+
+		/** Claims the next move of a node to make a child for, if the node has been visited enough to have
+		 *  another child (the square of the number of children may not exceed the finished playouts, so that the
+		 *  virtual losses of searches still in progress do not widen it)
+		 *  @param node the node the board is at
+		 *  @return the index of the move to make a child for, or -1 if the node should not grow
+		 */
+		private int claimExpansion(Node node) {
+			synchronized (node) {
+				if (node.moves == null) {
+					node.moves = generateOrderedMoves(order[node.seat]);
+					node.children = new Node[node.moves.length];
+				}
+				int expanded = node.expanded;
+				if (expanded == node.moves.length || (expanded > 0 && expanded * expanded > node.completed))
+					return -1;
+				node.expanded = expanded + 1;
+				return expanded;
+			}
+		}
+
+		/** Picks the child of a node with the best upper confidence bound for the player to move at the node
+		 *  @param node the node to pick from
+		 *  @return the child, or null if the node has none ready
+		 */
+		private Node select(Node node) {
+			Node best = null;
+			double bestValue = Double.NEGATIVE_INFINITY;
+			double logVisits = Math.log(Math.max(node.visits, 1));
+			for (int i = 0; i < node.expanded; i++) {
+				Node child = node.children[i];
+				if (child == null)
+					continue;
+				int visits = child.visits;
+				double value = visits == 0 ? Double.MAX_VALUE :
+					(double)child.reward / REWARD_SCALE / visits + EXPLORATION * Math.sqrt(logVisits / visits);
+				if (value > bestValue) {
+					bestValue = value;
+					best = child;
+				}
+			}
+			return best;
+		}
+
+		/** Generates a player's moves, ordered by how much distance they gain
+		 *  @param mover the player to move
+		 *  @return the moves, best first
+		 */
+		private int[] generateOrderedMoves(int mover) {
+			int count = board.generateMoves(mover, moveBuffer);
+			int[] moves = new int[count];
+			for (int i = 0; i < count; i++) {
+				int gain = Board.getTargetDistance(Board.getMoveFrom(moveBuffer[i]), mover) -
+						Board.getTargetDistance(Board.getMoveTo(moveBuffer[i]), mover);
+				// Sorting ascending on the negated gain puts the best moves first, ties in generation order
+				moves[i] = (Board.NUM_ROWS - gain) << 16 | i;
+			}
+			Arrays.sort(moves);
+			for (int i = 0; i < count; i++)
+				moves[i] = moveBuffer[moves[i] & 0xFFFF];
+			return moves;
+		}
+
+		/** Plays a few rounds from a position, each player making its greediest move or sometimes a random one
+		 *  @param seat the seat in the turn order of the player to move first
+		 */
+		private void playout(int seat) {
+			for (int ply = 0; ply < PLAYOUT_ROUNDS * order.length && !isGameOver(); ply++) {
+				int mover = order[seat];
+				int count = board.generateMoves(mover, moveBuffer);
+				if (count > 0) {
+					int choice = 0;
+					if (random.nextDouble() < RANDOM_MOVE_CHANCE)
+						choice = random.nextInt(count);
+					else {
+						int bestGain = Integer.MIN_VALUE;
+						for (int i = 0; i < count; i++) {
+							int gain = Board.getTargetDistance(Board.getMoveFrom(moveBuffer[i]), mover) -
+									Board.getTargetDistance(Board.getMoveTo(moveBuffer[i]), mover);
+							if (gain > bestGain) {
+								bestGain = gain;
+								choice = i;
+							}
+						}
+					}
+					play(moveBuffer[choice], seat);
+				}
+				seat = (seat + 1) % order.length;
+			}
+		}
+
+		/** Scores the board for every player: 1 for a player that has finished and 0 for the others, or otherwise
+		 *  between 0 and 1 depending on how far the player's distance sum is below the average
+		 */
+		private void score() {
+			int winner = 0;
+			long sum = 0;
+			for (int i = 0; i < order.length; i++) {
+				if (pieceCount[order[i]] > 0 && piecesInTarget[order[i]] == pieceCount[order[i]])
+					winner = order[i];
+				sum += distanceSum[order[i]];
+			}
+			for (int i = 0; i < order.length; i++) {
+				int colour = order[i];
+				if (winner != 0)
+					rewards[colour] = colour == winner ? REWARD_SCALE : 0;
+				else {
+					double reward = 0.5 + (sum / (double)order.length - distanceSum[colour]) / (2.0 * REWARD_RANGE);
+					rewards[colour] = (long)(Math.max(0, Math.min(1, reward)) * REWARD_SCALE);
+				}
+			}
+		}
+
+		/** Makes a move on the board, records it so it can be taken back, and passes the turn to the next seat
+		 *  @param move the move, packed with Board.encodeMove
+		 *  @param seat the seat in the turn order of the player making the move
+		 */
+		private void play(int move, int seat) {
+			int mover = order[seat];
+			if (numMade == movesMade.length) {
+				movesMade = Arrays.copyOf(movesMade, numMade * 2);
+				moversMade = Arrays.copyOf(moversMade, numMade * 2);
+			}
+			movesMade[numMade] = move;
+			moversMade[numMade++] = mover;
+			board.makeMove(Board.getMoveFrom(move), Board.getMoveTo(move));
+			board.setSideToMove(order[(seat + 1) % order.length]);
+			updateCounts(mover, Board.getMoveFrom(move), Board.getMoveTo(move));
+		}
+
+		/** Updates a player's distance and target counts for one of its pieces moving
+		 *  @param mover the player whose piece moves
+		 *  @param from the cell the piece moves from
+		 *  @param to the cell the piece moves to
+		 */
+		private void updateCounts(int mover, int from, int to) {
+			distanceSum[mover] += Board.getTargetDistance(to, mover) - Board.getTargetDistance(from, mover);
+			if (Board.isTargetHome(from, mover))
+				piecesInTarget[mover]--;
+			if (Board.isTargetHome(to, mover))
+				piecesInTarget[mover]++;
+		}
+
+		/** Checks whether any player in the search has all its pieces in its target home
+		 *  @return true if the game is over, false otherwise
+		 */
+		private boolean isGameOver() {
+			for (int i = 0; i < order.length; i++)
+				if (pieceCount[order[i]] > 0 && piecesInTarget[order[i]] == pieceCount[order[i]])
+					return true;
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,103 @@
+import java.util.Arrays;
+
+/** The Move Orderer Class
+ *  Sorts the moves of a search node so that the ones most likely to cause a cutoff are searched first: the move
+ *  stored in the transposition table, then the killer moves of the ply (moves that caused a cutoff in another
+ *  node at the same distance from the root), then the rest by the distance they gain towards the mover's target
+ *  corner, with ties broken by their history score (how often and how deep they have caused cutoffs anywhere in
+ *  the tree)
+ */
+
+public class MoveOrderer {
+
+	public static final int KILLERS_PER_PLY = 2;
+
+	private static final int TABLE_MOVE_SCORE = 1 << 30;
+	private static final int KILLER_SCORE = 1 << 29;
+	// Each step of distance gained outweighs any history score, which is capped below it
+	private static final int GAIN_SCALE = 1 << 16;
+	private static final int MAX_HISTORY = GAIN_SCALE - 1;
+
+	// The killer moves of each ply, most recent first, and the history score of each player's moves, indexed by
+	// the cell moved from times Board.NUM_CELLS plus the cell moved to
+	private int[][] killers;
+	private int[][] history = new int[Board.NUM_PLAYERS + 1][Board.NUM_CELLS * Board.NUM_CELLS];
+
+	// Each move's score in the high half and its index from the end of the list in the low half, so sorting these
+	// sorts the moves by score and keeps moves with the same score in the order they were generated
+	private long[] keys = new long[Board.MAX_MOVES];
+	private int[] unsorted = new int[Board.MAX_MOVES];
+
+	/** Creates a move orderer with empty killer and history tables
+	 *  Precondition: maxPly >= 1
+	 *  @param maxPly the most moves from the root that will be ordered
+	 */
+	public MoveOrderer(int maxPly) {
+		killers = new int[maxPly + 1][KILLERS_PER_PLY];
+	}
+
+	/** Gets ready for a new search: the killers are cleared, since they belong to positions that are gone, and
+	 *  the history scores are halved so that recent cutoffs count for more
+	 *  Postcondition: the tables have been cleared and aged
+	 */
+	public void newSearch() {
+		for (int[] plyKillers : killers)
+			Arrays.fill(plyKillers, 0);
+		for (int[] playerHistory : history)
+			for (int i = 0; i < playerHistory.length; i++)
+				playerHistory[i] >>= 1;
+	}
+
+	/** Sorts a list of moves into the order to search them
+	 *  Precondition: ply is between 0 and the maxPly the orderer was created with, and the moves are packed with
+	 *  Board.encodeMove
+	 *  Postcondition: the moves have been sorted, best first
+	 *  @param moves the list of moves
+	 *  @param count the number of moves in the list
+	 *  @param mover the player making the moves
+	 *  @param ply the number of moves from the root
+	 *  @param tableMove the move stored in the transposition table for the position, or 0 for none
+	 */
+	public void order(int[] moves, int count, int mover, int ply, int tableMove) {
+		int[] plyKillers = killers[ply];
+		int[] moverHistory = history[mover];
+		for (int i = 0; i < count; i++) {
+			int move = moves[i];
+			int from = Board.getMoveFrom(move), to = Board.getMoveTo(move);
+			int score;
+			if (move == tableMove)
+				score = TABLE_MOVE_SCORE;
+			else if (move == plyKillers[0])
+				score = KILLER_SCORE + 1;
+			else if (move == plyKillers[1])
+				score = KILLER_SCORE;
+			else
+				score = (Board.getTargetDistance(from, mover) - Board.getTargetDistance(to, mover)) * GAIN_SCALE +
+						Math.min(moverHistory[from * Board.NUM_CELLS + to], MAX_HISTORY);
+			keys[i] = (long)score << 32 | (count - 1 - i);
+		}
+		System.arraycopy(moves, 0, unsorted, 0, count);
+		Arrays.sort(keys, 0, count);
+		for (int i = 0; i < count; i++)
+			moves[i] = unsorted[count - 1 - (int)keys[count - 1 - i]];
+	}
+
+	/** Records a move that caused a cutoff, as a killer of its ply and in the mover's history
+	 *  Precondition: ply is between 0 and the maxPly the orderer was created with
+	 *  Postcondition: the move is the first killer of the ply and its history score has gone up by depth squared
+	 *  @param mover the player that made the move
+	 *  @param move the move, packed with Board.encodeMove
+	 *  @param ply the number of moves from the root
+	 *  @param depth the number of moves that were left to look ahead (deeper cutoffs save more work)
+	 */
+	public void addCutoff(int mover, int move, int ply, int depth) {
+		int[] plyKillers = killers[ply];
+		if (plyKillers[0] != move) {
+			plyKillers[1] = plyKillers[0];
+			plyKillers[0] = move;
+		}
+		int index = Board.getMoveFrom(move) * Board.NUM_CELLS + Board.getMoveTo(move);
+		history[mover][index] = Math.min(history[mover][index] + depth * depth, MAX_HISTORY);
+	}
+
+}
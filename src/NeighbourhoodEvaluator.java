@@ -0,0 +1,99 @@
+/** The Neighbourhood Evaluator Class
+ *  The base of the evaluators that score each piece by the cells around it: a piece's score may depend on its own
+ *  cell and on the cells one and two steps away from it in each direction (the cells a step or a single jump
+ *  passes over or lands on). A move only changes the cell it leaves and the cell it lands on, so after a move
+ *  only the pieces within two steps of either cell in a straight line are scored again, and each player's cost is
+ *  kept as the sum of its pieces' scores
+ */
+
+public abstract class NeighbourhoodEvaluator implements Evaluator {
+
+	// The board being scored, the score of the piece on each cell (0 for an empty cell), and each player's total
+	private Board board;
+	private int[] pieceScore = new int[Board.NUM_CELLS];
+	private int[] total = new int[Board.NUM_PLAYERS + 1];
+
+	/** Scores one piece by the cells around it
+	 *  Precondition: owner has a piece on cell
+	 *  @param board the position the piece is in
+	 *  @param cell the cell of the piece
+	 *  @param owner the player the piece belongs to
+	 *  @return the piece's score, at least 0
+	 */
+	protected abstract int scorePiece(Board board, int cell, int owner);
+
+	/** Scores every piece on a board and keeps the board to look at after each move
+	 *  Postcondition: getCost gives the sum of each player's piece scores on the board
+	 *  @param board the position to score (it is not changed)
+	 */
+	public void reset(Board board) {
+		this.board = board;
+		for (int cell = 0; cell < Board.NUM_CELLS; cell++)
+			pieceScore[cell] = 0;
+		for (int player = 1; player <= Board.NUM_PLAYERS; player++) {
+			total[player] = 0;
+			for (int piece = 0; piece < board.getPieceCount(player); piece++) {
+				int cell = board.getPieceCell(player, piece);
+				pieceScore[cell] = scorePiece(board, cell, player);
+				total[player] += pieceScore[cell];
+			}
+		}
+	}
+
+	/** Takes the piece off the cell it left and scores it again where it landed, along with every piece whose
+	 *  neighbourhood includes either cell
+	 *  @param mover the player whose piece moves
+	 *  @param from the cell the piece moves from
+	 *  @param to the cell the piece moves to
+	 */
+	public void movePiece(int mover, int from, int to) {
+		total[mover] -= pieceScore[from];
+		pieceScore[from] = 0;
+		rescore(to);
+		rescoreAround(from);
+		rescoreAround(to);
+	}
+
+	/** Scores again the pieces one and two steps from a cell in a straight line
+	 *  @param cell the cell that has changed
+	 */
+	private void rescoreAround(int cell) {
+		for (int direction = Board.DIRECTION_SOUTH; direction <= Board.DIRECTION_WEST; direction++) {
+			int adjacent = Board.getAdjacentCell(cell, direction);
+			if (adjacent >= 0)
+				rescore(adjacent);
+			int jump = Board.getJumpCell(cell, direction);
+			if (jump >= 0)
+				rescore(jump);
+		}
+	}
+
+	/** Scores the piece on a cell again, if there is one
+	 *  @param cell the cell to score
+	 */
+	private void rescore(int cell) {
+		int owner = board.getPiece(cell);
+		if (owner <= 0)
+			return;
+		int score = scorePiece(board, cell, owner);
+		total[owner] += score - pieceScore[cell];
+		pieceScore[cell] = score;
+	}
+
+	/** Gets the sum of a player's piece scores
+	 *  @param player the player to score
+	 *  @return the sum of the scores of the player's pieces
+	 */
+	public int getCost(int player) {
+		return total[player];
+	}
+
+	/** Gets the most one move can lower a player's cost, which is all of it, since the move can change the
+	 *  neighbourhood of every piece
+	 *  @return getMaxCost()
+	 */
+	public int getMaxGain() {
+		return getMaxCost();
+	}
+
+}
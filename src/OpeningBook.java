@@ -0,0 +1,356 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.TreeMap;
+
+/** The OpeningBook Class
+ *  Opening moves looked up by Board's position hash, so a position is found whatever order its moves were played in
+ *  and for any seating of players (the hash includes every piece and the side to move). Each position has one or
+ *  more candidate moves, and one is picked at random in proportion to its weight.
+ *  The book file has one position per line, "hash move weight [move weight ...]", with the moves packed with
+ *  Board.encodeMove; blank lines and lines starting with # are skipped. It is built offline from self-play:
+ *  Usage: java OpeningBook [games] [players/players/...] [rounds] [greedy|search|paranoid|maxn|brs|mcts]
+ *         [time limit in ms]
+ */
+
+public class OpeningBook {
+
+	public static final String BOOK_FILE = "OpeningBook";
+	public static final int DEFAULT_GAMES = 100;
+	public static final int DEFAULT_ROUNDS = 8;
+	public static final String DEFAULT_ENGINE = "brs";
+	// The seatings the server plays, which the book is built for unless others are given
+	public static final String DEFAULT_SEATINGS = "1,4/2,5/3,6/1,3,5/2,4,6/1,2,3,4,5,6";
+
+	// Rounds a builder game may last before the players are ranked by how far they have left to go
+	private static final int MAX_GAME_ROUNDS = 200;
+	// Chance that a builder game plays a random forward move instead of the engine's, so that positions get
+	// more than one candidate
+	private static final double VARIATION = 0.2;
+	// Fewest builder games a move must have been played in to go in the book
+	private static final int MIN_GAMES = 2;
+	// Weight of a move that every player it was played by went on to win with
+	private static final int MAX_WEIGHT = 1000;
+	private static final long BUILD_SEED = 0x426F6F6BL;
+
+	// Hashes of the positions in increasing order; the candidates of position i are moves[firstMove[i]] to
+	// moves[firstMove[i + 1] - 1], with their weights and the total weight of each position
+	private long[] keys;
+	private int[] firstMove;
+	private int[] moves;
+	private int[] weights;
+	private int[] totalWeight;
+
+	private Random random;
+	private int[] path = new int[Board.NUM_CELLS];
+
+	/** Reads a book from a file in the working directory, or from the classpath if it is not there
+	 *  Precondition: the file is in the format written by build
+	 *  Postcondition: the book has been read
+	 *  @param fileName the book file
+	 *  @throws FileNotFoundException if the file is neither in the working directory nor on the classpath
+	 */
+	public OpeningBook(String fileName) throws FileNotFoundException {
+		this(fileName, new Random());
+	}
+
+	/** Reads a book from a file in the working directory (or from the classpath if it is not there), choosing
+	 *  between candidate moves with a given random number generator
+	 *  Precondition: the file is in the format written by build
+	 *  Postcondition: the book has been read
+	 *  @param fileName the book file
+	 *  @param random the generator used to pick candidates
+	 *  @throws FileNotFoundException if the file is neither in the working directory nor on the classpath
+	 */
+	public OpeningBook(String fileName, Random random) throws FileNotFoundException {
+		this.random = random;
+		TreeMap<Long, int[]> positions = new TreeMap<Long, int[]>();
+		int numMoves = 0;
+		Scanner inFile = new Scanner(Board.openDataFile(fileName));
+		try {
+			while (inFile.hasNextLine()) {
+				String line = inFile.nextLine().trim();
+				if (line.length() == 0 || line.startsWith("#"))
+					continue;
+				String[] fields = line.split("\\s+");
+				int[] candidates = new int[fields.length - 1];
+				for (int i = 0; i < candidates.length; i++)
+					candidates[i] = Integer.parseInt(fields[i + 1]);
+				positions.put(Long.parseLong(fields[0]), candidates);
+				numMoves += candidates.length / 2;
+			}
+		}
+		finally {
+			inFile.close();
+		}
+
+		keys = new long[positions.size()];
+		firstMove = new int[positions.size() + 1];
+		totalWeight = new int[positions.size()];
+		moves = new int[numMoves];
+		weights = new int[numMoves];
+		int position = 0, count = 0;
+		for (Map.Entry<Long, int[]> entry : positions.entrySet()) {
+			keys[position] = entry.getKey();
+			firstMove[position] = count;
+			int[] candidates = entry.getValue();
+			for (int i = 0; i + 1 < candidates.length; i += 2) {
+				moves[count] = candidates[i];
+				weights[count] = candidates[i + 1];
+				totalWeight[position] += candidates[i + 1];
+				count++;
+			}
+			position++;
+		}
+		firstMove[position] = count;
+	}
+
+	/** Picks a book move for the side to move, at random in proportion to the weights of the candidates
+	 *  Precondition: the side to move of the board has been set
+	 *  @param board the board to find a move for (it is not changed)
+	 *  @return the row and column of the piece to move followed by the row and column of its new position, or
+	 *  null if the position is not in the book
+	 */
+	public int[] getMove(Board board) {
+		int position = Arrays.binarySearch(keys, board.getHash());
+		if (position < 0 || totalWeight[position] <= 0)
+			return null;
+		int pick = random.nextInt(totalWeight[position]);
+		int candidate = firstMove[position];
+		while (pick >= weights[candidate])
+			pick -= weights[candidate++];
+
+		// Guard against two positions sharing a hash: the move must be one generateMoves would give, a legal move
+		// of a piece of the side to move that does not end in a home it may not enter
+		int from = Board.getMoveFrom(moves[candidate]), to = Board.getMoveTo(moves[candidate]);
+		int side = board.getSideToMove();
+		if (from >= Board.NUM_CELLS || to >= Board.NUM_CELLS || board.getPiece(from) != side ||
+				Board.isNotAllowedHome(to, side) || board.getPath(from, to, path) == 0)
+			return null;
+		return new int[] { Board.getRow(from), Board.getColumn(from), Board.getRow(to), Board.getColumn(to) };
+	}
+
+	/** Gets the number of positions in the book
+	 *  @return the number of positions
+	 */
+	public int size() {
+		return keys.length;
+	}
+
+	/** Gets the number of candidate moves in the book
+	 *  @return the number of moves over every position
+	 */
+	public int getMoveCount() {
+		return moves.length;
+	}
+
+	/** Builds a book by playing games between engines and writes it to a file. For the first rounds of each game,
+	 *  every move played and the position it was played in is recorded, along with how the player who played
+	 *  it did in the game: 1 for finishing first, 0 for finishing last, and in between for the places in
+	 *  between (players who have not finished are ranked by how far they have left to go). Sometimes a random
+	 *  forward move is played instead of the engine's. Moves played in at least MIN_GAMES games go in the book,
+	 *  weighted by the player's average result
+	 *  Precondition: each seating holds at least two valid player numbers, games >= 1 and rounds >= 1
+	 *  Postcondition: the book has been written
+	 *  @param seatings the players in turn order of each seating to build the book for
+	 *  @param games the number of games to play in each seating
+	 *  @param rounds the number of times each player moves from the book
+	 *  @param engine the kind of engine every player uses (see Benchmark.createEngine)
+	 *  @param timeLimit the time an engine may take for each move in milliseconds, or 0 for none
+	 *  @param fileName the file to write the book to
+	 *  @return the number of positions written
+	 *  @throws FileNotFoundException if BoardMap does not exist or the book cannot be written
+	 */
+	public static int build(int[][] seatings, int games, int rounds, String engine, long timeLimit, String fileName)
+			throws FileNotFoundException {
+		// For each position, the games and total result of each move played in it
+		TreeMap<Long, TreeMap<Integer, double[]>> results = new TreeMap<Long, TreeMap<Integer, double[]>>();
+		Random random = new Random(BUILD_SEED);
+		int[] moveList = new int[Board.MAX_MOVES];
+
+		for (int[] players : seatings) {
+			for (int game = 0; game < games; game++) {
+				Board board = Perft.loadPosition(players, null);
+				Engine[] engines = new Engine[Board.NUM_PLAYERS + 1];
+				for (int player : players)
+					engines[player] = Benchmark.createEngine(engine, player, timeLimit);
+
+				ArrayList<long[]> played = new ArrayList<long[]>();
+				int[] finished = new int[Board.NUM_PLAYERS + 1];
+				Arrays.fill(finished, Integer.MAX_VALUE);
+				boolean isOver = false;
+				for (int round = 0; round < MAX_GAME_ROUNDS && !isOver; round++) {
+					for (int i = 0; i < players.length && !isOver; i++) {
+						int player = players[i];
+						board.setSideToMove(player);
+						int move = 0;
+						if (round < rounds && random.nextDouble() < VARIATION)
+							move = getRandomForwardMove(board, player, random, moveList);
+						if (move == 0) {
+							int[] choice = engines[player].nextMove(board);
+							if (choice == null)
+								continue;
+							move = Board.encodeMove(Board.getCell(choice[0], choice[1]), Board.getCell(choice[2], choice[3]));
+						}
+						if (round < rounds)
+							played.add(new long[] { board.getHash(), move, player });
+
+						int from = Board.getMoveFrom(move), to = Board.getMoveTo(move);
+						board.move(Board.getRow(from), Board.getColumn(from), Board.getRow(to), Board.getColumn(to));
+						for (int other : players)
+							engines[other].movePlayed(Board.getRow(from), Board.getColumn(from), Board.getRow(to),
+									Board.getColumn(to));
+						if (isFinished(board, player)) {
+							finished[player] = round;
+							isOver = true;
+						}
+					}
+				}
+
+				double[] result = rankPlayers(board, players, finished);
+				for (long[] entry : played) {
+					TreeMap<Integer, double[]> candidates = results.get(entry[0]);
+					if (candidates == null) {
+						candidates = new TreeMap<Integer, double[]>();
+						results.put(entry[0], candidates);
+					}
+					double[] stats = candidates.get((int)entry[1]);
+					if (stats == null) {
+						stats = new double[2];
+						candidates.put((int)entry[1], stats);
+					}
+					stats[0]++;
+					stats[1] += result[(int)entry[2]];
+				}
+			}
+		}
+
+		int positions = 0;
+		PrintWriter outFile = new PrintWriter(new File(fileName));
+		try {
+			outFile.println("# Opening book built from " + games + " games per seating of " + engine +
+					(timeLimit > 0 ? " (" + timeLimit + " ms/move)" : "") + ", " + rounds + " rounds deep");
+			outFile.println("# hash move weight [move weight ...], with moves packed by Board.encodeMove");
+			for (Map.Entry<Long, TreeMap<Integer, double[]>> position : results.entrySet()) {
+				StringBuilder line = new StringBuilder();
+				for (Map.Entry<Integer, double[]> candidate : position.getValue().entrySet()) {
+					double[] stats = candidate.getValue();
+					int weight = (int)Math.round(MAX_WEIGHT * stats[1] / stats[0]);
+					if (stats[0] >= MIN_GAMES && weight > 0)
+						line.append(' ').append(candidate.getKey()).append(' ').append(weight);
+				}
+				if (line.length() > 0) {
+					outFile.println(position.getKey() + line.toString());
+					positions++;
+				}
+			}
+		}
+		finally {
+			outFile.close();
+		}
+		return positions;
+	}
+
+	/** Picks a random move of a player that ends closer to the corner of its target home than it started
+	 *  @param board the board to find a move on
+	 *  @param player the player to move
+	 *  @param random the generator to pick the move with
+	 *  @param moveList space for the player's moves
+	 *  @return the move, packed with Board.encodeMove, or 0 if the player has no forward moves
+	 */
+	public static int getRandomForwardMove(Board board, int player, Random random, int[] moveList) {
+		int numMoves = board.generateMoves(player, moveList);
+		int numForward = 0;
+		for (int i = 0; i < numMoves; i++) {
+			int move = moveList[i];
+			if (Board.getTargetDistance(Board.getMoveTo(move), player) < Board.getTargetDistance(Board.getMoveFrom(move), player))
+				moveList[numForward++] = move;
+		}
+		return numForward == 0 ? 0 : moveList[random.nextInt(numForward)];
+	}
+
+	/** Checks whether a player has all its pieces in its target home
+	 *  @param board the board to check
+	 *  @param player the player to check
+	 *  @return true if the player has finished, false otherwise
+	 */
+	public static boolean isFinished(Board board, int player) {
+		for (int piece = 0; piece < board.getPieceCount(player); piece++)
+			if (!Board.isTargetHome(board.getPieceCell(player, piece), player))
+				return false;
+		return true;
+	}
+
+	/** Scores how each player did in a game: the share of the other players it beat, counting a tie as half.
+	 *  A player beats another if it finished in an earlier round, or neither finished and it has less distance
+	 *  left to the corner of its target home
+	 *  @param board the board at the end of the game
+	 *  @param players the players in the game
+	 *  @param finished the round each player finished in, or Integer.MAX_VALUE if it did not
+	 *  @return the result of each player from 0 to 1, indexed by player
+	 */
+	private static double[] rankPlayers(Board board, int[] players, int[] finished) {
+		int[] distance = new int[Board.NUM_PLAYERS + 1];
+		for (int player : players)
+			for (int piece = 0; piece < board.getPieceCount(player); piece++)
+				distance[player] += Board.getTargetDistance(board.getPieceCell(player, piece), player);
+
+		double[] result = new double[Board.NUM_PLAYERS + 1];
+		for (int player : players) {
+			for (int other : players) {
+				if (other == player)
+					continue;
+				if (finished[player] != finished[other])
+					result[player] += finished[player] < finished[other] ? 1 : 0;
+				else if (distance[player] != distance[other])
+					result[player] += distance[player] < distance[other] ? 1 : 0;
+				else
+					result[player] += 0.5;
+			}
+			result[player] /= players.length - 1;
+		}
+		return result;
+	}
+
+	public static void main(String[] args) throws FileNotFoundException {
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GAMES;
+		String[] seatingList = (args.length > 1 ? args[1] : DEFAULT_SEATINGS).split("/");
+		int rounds = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_ROUNDS;
+		String engine = args.length > 3 ? args[3] : DEFAULT_ENGINE;
+		long timeLimit = args.length > 4 ? Long.parseLong(args[4]) : 0;
+
+		int[][] seatings = new int[seatingList.length][];
+		for (int i = 0; i < seatingList.length; i++)
+			seatings[i] = Perft.parsePlayers(seatingList[i]);
+
+		long start = System.nanoTime();
+		int positions = build(seatings, games, rounds, engine, timeLimit, BOOK_FILE);
+		long time = System.nanoTime() - start;
+		System.out.println(positions + " positions written to " + BOOK_FILE + " from " + games * seatings.length +
+				" games in " + time / 1000000 + " ms");
+
+		// Look up the start of every seating to measure how long a book hit takes
+		OpeningBook book = new OpeningBook(BOOK_FILE, new Random(BUILD_SEED));
+		int lookups = 0, hits = 0;
+		long lookupTime = 0;
+		for (int repeat = 0; repeat < 1000; repeat++) {
+			for (int[] players : seatings) {
+				Board board = Perft.loadPosition(players, null);
+				long lookupStart = System.nanoTime();
+				int[] move = book.getMove(board);
+				lookupTime += System.nanoTime() - lookupStart;
+				lookups++;
+				if (move != null)
+					hits++;
+			}
+		}
+		System.out.println(book.size() + " positions and " + book.getMoveCount() + " moves read back; " + hits +
+				" of " + lookups + " start positions found, " + lookupTime / lookups + " ns/lookup");
+	}
+
+}
@@ -0,0 +1,365 @@
+import java.io.FileNotFoundException;
+import java.util.Scanner;
+
+/** The Perft Class
+ *  Counts every legal move sequence from a position to a fixed depth, to check the move generator against known
+ *  node counts and to measure how fast it runs
+ *  Usage: java Perft [depth] [players] [position file]
+ *         java Perft -check [depth] [players] [position file]
+ *         java Perft -verify [results file]
+ *  players is the turn order as a comma separated list (e.g. 1,4), and the position file is in the BoardMap format;
+ *  without one, the players start from the setup in BoardMap
+ */
+
+public class Perft {
+
+	public static final String RESULTS_FILE = "PerftResults";
+	public static final String DEFAULT_PLAYERS = "1,2,3,4,5,6";
+	public static final int DEFAULT_DEPTH = 3;
+
+	// Row and column offsets of the six directions, kept separate from Board so the reference moves are independent
+	private static final int[] ROW_OFFSETS = { 0, 0, 1, -1, 1, -1 };
+	private static final int[] COLUMN_OFFSETS = { 1, -1, 0, 0, 1, -1 };
+
+	private Board board;
+	private int[] players;
+	private int[][] moveBuffers;
+	private boolean isChecking;
+
+	/** Creates a perft counter for a position
+	 *  Precondition: board is an initialized Board, players holds valid player numbers, and maxDepth >= 0
+	 *  Postcondition: a counter that searches board up to maxDepth moves deep has been created
+	 *  @param board the position to count from (it is changed during a count, but restored afterwards)
+	 *  @param players the players in turn order, starting with the player to move
+	 *  @param maxDepth the deepest count that will be asked for
+	 *  @param isChecking whether every node's moves should be checked against the reference move finder,
+	 *  Board.isValidMove and Board.getPath
+	 */
+	public Perft(Board board, int[] players, int maxDepth, boolean isChecking) {
+		this.board = board;
+		this.players = players;
+		this.isChecking = isChecking;
+		moveBuffers = new int[maxDepth + 1][Board.MAX_MOVES];
+	}
+
+	/** Counts the move sequences of a given length from the position
+	 *  Precondition: 0 <= depth <= the maxDepth the counter was created with
+	 *  Postcondition: the number of sequences has been returned and the board is unchanged
+	 *  @param depth the number of moves in each sequence
+	 *  @return the number of legal move sequences of that length
+	 *  @throws IllegalStateException if checking and a node's moves disagree with the reference
+	 */
+	public long perft(int depth) {
+		return perft(depth, 0);
+	}
+
+	/** Counts the move sequences of a given length from the current node
+	 *  @param depth the number of moves left in each sequence
+	 *  @param ply the number of moves made since the root
+	 *  @return the number of legal move sequences of that length
+	 */
+	private long perft(int depth, int ply) {
+		if (depth == 0)
+			return 1;
+
+		int player = players[ply % players.length];
+		int[] moves = moveBuffers[depth];
+		int count = board.generateMoves(player, moves);
+		if (isChecking)
+			check(player, moves, count);
+
+		// The last level only needs the number of moves
+		if (depth == 1)
+			return count;
+
+		long nodes = 0;
+		for (int i = 0; i < count; i++) {
+			board.makeMove(Board.getMoveFrom(moves[i]), Board.getMoveTo(moves[i]));
+			nodes += perft(depth - 1, ply + 1);
+			board.unmakeMove();
+		}
+		return nodes;
+	}
+
+	/** Checks that the generated moves of a player match the moves found by a simple recursive search over
+	 *  the board array, that Board.isValidMoveNoOtherHomes agrees with them, and that Board.getPath gives a
+	 *  legal path to each of them
+	 *  Precondition: moves holds the count moves generated for player at the current node
+	 *  Postcondition: nothing, if everything agrees
+	 *  @param player the player the moves were generated for
+	 *  @param moves the generated moves
+	 *  @param count the number of generated moves
+	 *  @throws IllegalStateException if anything disagrees
+	 */
+	private void check(int player, int[] moves, int count) {
+		int[][] cells = board.getBoard();
+		boolean[][] generated = new boolean[Board.NUM_ROWS][Board.NUM_COLUMNS];
+		int[] path = new int[Board.NUM_CELLS];
+		for (int piece = 0; piece < board.getPieceCount(player); piece++) {
+			int cell = board.getPieceCell(player, piece);
+			int row = Board.getRow(cell), column = Board.getColumn(cell);
+
+			for (int i = 0; i < Board.NUM_ROWS; i++)
+				for (int j = 0; j < Board.NUM_COLUMNS; j++)
+					generated[i][j] = false;
+			for (int i = 0; i < count; i++)
+				if (Board.getMoveFrom(moves[i]) == cell)
+					generated[Board.getRow(Board.getMoveTo(moves[i]))][Board.getColumn(Board.getMoveTo(moves[i]))] = true;
+
+			boolean[][] reference = referenceDestinations(cells, row, column);
+			for (int i = 0; i < Board.NUM_ROWS; i++) {
+				for (int j = 0; j < Board.NUM_COLUMNS; j++) {
+					boolean allowed = reference[i][j] && !board.notAllowedHome(i, j, player);
+					if (allowed != generated[i][j])
+						fail("generator", player, row, column, i, j, generated[i][j]);
+					if (board.isValidMoveNoOtherHomes(row, column, i, j, player) != generated[i][j])
+						fail("isValidMoveNoOtherHomes", player, row, column, i, j, !generated[i][j]);
+				}
+			}
+
+			// Every destination's path must be a walk or a chain of single jumps
+			for (int i = 0; i < count; i++) {
+				if (Board.getMoveFrom(moves[i]) != cell)
+					continue;
+				int length = board.getPath(cell, Board.getMoveTo(moves[i]), path);
+				if (!isPath(cells, path, length))
+					fail("Board.getPath", player, row, column, Board.getRow(path[length - 1]), 
+							Board.getColumn(path[length - 1]), true);
+			}
+		}
+	}
+
+	/** Checks that a path is a single walk or a chain of jumps, each over a piece and onto an empty spot
+	 *  @param cells the board array
+	 *  @param path the cells of the path, starting with the piece's cell
+	 *  @param length the number of cells in the path
+	 *  @return true if every step of the path is legal, false otherwise
+	 */
+	private static boolean isPath(int[][] cells, int[] path, int length) {
+		if (length < 2)
+			return false;
+		for (int i = 1; i < length; i++) {
+			int row = Board.getRow(path[i - 1]), column = Board.getColumn(path[i - 1]);
+			int rowChange = Board.getRow(path[i]) - row, columnChange = Board.getColumn(path[i]) - column;
+			if (cells[Board.getRow(path[i])][Board.getColumn(path[i])] != 0)
+				return false;
+			if (Board.isAdjacent(row, column, row + rowChange, column + columnChange) > 0) {
+				if (length != 2)
+					return false;
+			}
+			else {
+				// A jump goes over the adjacent spot halfway to the landing spot, which must hold a piece other
+				// than the moving one
+				int overRow = row + rowChange / 2, overColumn = column + columnChange / 2;
+				if (rowChange % 2 != 0 || columnChange % 2 != 0 || Board.isAdjacent(row, column, overRow, overColumn) == 0
+						|| cells[overRow][overColumn] <= 0 || Board.getCell(overRow, overColumn) == path[0])
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/** Reports a move that the move finders disagree on
+	 *  @param source the name of the move finder that disagrees with the reference
+	 *  @param player the player whose move it is
+	 *  @param row the original row of the piece
+	 *  @param column the original column of the piece
+	 *  @param newRow the row of the destination
+	 *  @param newColumn the column of the destination
+	 *  @param allowed whether source allowed the move
+	 *  @throws IllegalStateException always
+	 */
+	private void fail(String source, int player, int row, int column, int newRow, int newColumn, boolean allowed) {
+		throw new IllegalStateException(source + (allowed ? " allows " : " does not allow ") + "player " + player +
+				" " + row + " " + column + " to " + newRow + " " + newColumn + " in\n" + toMap(board));
+	}
+
+	/** Finds every spot the piece at a spot can walk or jump to, by recursing over the board array
+	 *  Precondition: cells is a board array and row, column is a point on the board
+	 *  @param cells the board array
+	 *  @param row the row of the piece
+	 *  @param column the column of the piece
+	 *  @return a NUM_ROWS by NUM_COLUMNS array that is true at every destination of the piece
+	 */
+	private static boolean[][] referenceDestinations(int[][] cells, int row, int column) {
+		boolean[][] reached = new boolean[Board.NUM_ROWS][Board.NUM_COLUMNS];
+		reached[row][column] = true;
+		referenceJumps(cells, row, column, row, column, reached);
+		for (int i = 0; i < ROW_OFFSETS.length; i++) {
+			int newRow = row + ROW_OFFSETS[i], newColumn = column + COLUMN_OFFSETS[i];
+			if (isOnArray(newRow, newColumn) && cells[newRow][newColumn] == 0)
+				reached[newRow][newColumn] = true;
+		}
+		reached[row][column] = false;
+		return reached;
+	}
+
+	/** Marks every spot reachable with jumps from a spot, never jumping over the moving piece's starting spot
+	 *  @param cells the board array
+	 *  @param row the row to jump from
+	 *  @param column the column to jump from
+	 *  @param startRow the row the piece started from
+	 *  @param startColumn the column the piece started from
+	 *  @param reached the spots reached so far
+	 */
+	private static void referenceJumps(int[][] cells, int row, int column, int startRow, int startColumn,
+			boolean[][] reached) {
+		for (int i = 0; i < ROW_OFFSETS.length; i++) {
+			int overRow = row + ROW_OFFSETS[i], overColumn = column + COLUMN_OFFSETS[i];
+			int newRow = overRow + ROW_OFFSETS[i], newColumn = overColumn + COLUMN_OFFSETS[i];
+			if (isOnArray(newRow, newColumn) && cells[overRow][overColumn] > 0 && cells[newRow][newColumn] == 0
+					&& (overRow != startRow || overColumn != startColumn) && !reached[newRow][newColumn]) {
+				reached[newRow][newColumn] = true;
+				referenceJumps(cells, newRow, newColumn, startRow, startColumn, reached);
+			}
+		}
+	}
+
+	/** Checks if a spot is inside the board array
+	 *  @param row the row of the spot
+	 *  @param column the column of the spot
+	 *  @return true if the spot is inside the NUM_ROWS by NUM_COLUMNS array, false otherwise
+	 */
+	private static boolean isOnArray(int row, int column) {
+		return row >= 0 && row < Board.NUM_ROWS && column >= 0 && column < Board.NUM_COLUMNS;
+	}
+
+	/** Writes a board in the BoardMap format
+	 *  @param board the board to write
+	 *  @return the board as NUM_ROWS lines of NUM_COLUMNS characters
+	 */
+	public static String toMap(Board board) {
+		StringBuilder map = new StringBuilder();
+		for (int row = 0; row < Board.NUM_ROWS; row++) {
+			for (int column = 0; column < Board.NUM_COLUMNS; column++)
+				map.append(board.getBoard()[row][column] < 0 ? 'x' : (char)('0' + board.getBoard()[row][column]));
+			map.append('\n');
+		}
+		return map.toString();
+	}
+
+	/** Parses a turn order such as "1,4"
+	 *  @param list the players separated by commas
+	 *  @return the players in turn order
+	 */
+	public static int[] parsePlayers(String list) {
+		String[] parts = list.split(",");
+		int[] players = new int[parts.length];
+		for (int i = 0; i < parts.length; i++) {
+			players[i] = Integer.parseInt(parts[i].trim());
+			if (players[i] < 1 || players[i] > Board.NUM_PLAYERS)
+				throw new IllegalArgumentException("Invalid player " + parts[i]);
+		}
+		return players;
+	}
+
+	/** Creates a board for a count, either from a position file or from the setup in BoardMap with only the
+	 *  given players' pieces. Either file is read from the working directory, or from the classpath if it is
+	 *  not there
+	 *  @param players the players taking part
+	 *  @param positionFile the position file in the BoardMap format, or null to use BoardMap
+	 *  @return the board to count from
+	 *  @throws FileNotFoundException if a file is neither in the working directory nor on the classpath
+	 */
+	public static Board loadPosition(int[] players, String positionFile) throws FileNotFoundException {
+		Scanner inFile = new Scanner(Board.openDataFile(positionFile == null ? "BoardMap" : positionFile));
+		int[][] map;
+		try {
+			map = Board.readBoardMap(inFile);
+		}
+		finally {
+			inFile.close();
+		}
+
+		if (positionFile == null) {
+			for (int row = 0; row < Board.NUM_ROWS; row++) {
+				for (int column = 0; column < Board.NUM_COLUMNS; column++) {
+					boolean isPlaying = false;
+					for (int player : players)
+						isPlaying |= map[row][column] == player;
+					if (map[row][column] > 0 && !isPlaying)
+						map[row][column] = 0;
+				}
+			}
+		}
+
+		Board board = new Board();
+		board.setup(map);
+		board.setSideToMove(players[0]);
+		return board;
+	}
+
+	/** Counts every depth up to depth and prints the node counts and speeds
+	 *  @param depth the deepest count
+	 *  @param players the players in turn order
+	 *  @param positionFile the position file, or null to start from BoardMap
+	 *  @param isChecking whether to check every node against the reference move finder
+	 *  @throws FileNotFoundException if a file does not exist
+	 */
+	private static void run(int depth, int[] players, String positionFile, boolean isChecking)
+			throws FileNotFoundException {
+		Board board = loadPosition(players, positionFile);
+		Perft perft = new Perft(board, players, depth, isChecking);
+		for (int d = 1; d <= depth; d++) {
+			long start = System.nanoTime();
+			long nodes = perft.perft(d);
+			long time = System.nanoTime() - start;
+			System.out.println("depth " + d + ": " + nodes + " nodes in " + time / 1000000 + " ms (" +
+					(long)(nodes / (time / 1e9)) + " nodes/sec)");
+		}
+	}
+
+	/** Counts every entry of a results file and compares each count with the expected one. Each line of the
+	 *  file is "players depth nodes [position file]"; blank lines and lines starting with # are skipped. The
+	 *  files are read from the working directory, or from the classpath if they are not there
+	 *  @param resultsFile the file of expected counts
+	 *  @return true if every count matched, false otherwise
+	 *  @throws FileNotFoundException if a file is neither in the working directory nor on the classpath
+	 */
+	private static boolean verify(String resultsFile) throws FileNotFoundException {
+		Scanner inFile = new Scanner(Board.openDataFile(resultsFile));
+		boolean isPassing = true;
+		try {
+			while (inFile.hasNextLine()) {
+				String line = inFile.nextLine().trim();
+				if (line.length() == 0 || line.startsWith("#"))
+					continue;
+
+				String[] fields = line.split("\\s+");
+				int[] players = parsePlayers(fields[0]);
+				int depth = Integer.parseInt(fields[1]);
+				long expected = Long.parseLong(fields[2]);
+				String positionFile = fields.length > 3 ? fields[3] : null;
+
+				Board board = loadPosition(players, positionFile);
+				long start = System.nanoTime();
+				long nodes = new Perft(board, players, depth, false).perft(depth);
+				long time = System.nanoTime() - start;
+				boolean isMatching = nodes == expected;
+				isPassing &= isMatching;
+				System.out.println((isMatching ? "ok     " : "FAILED ") + line + (isMatching ? "" : " (got " + nodes + ")") +
+						" " + time / 1000000 + " ms (" + (long)(nodes / (time / 1e9)) + " nodes/sec)");
+			}
+		}
+		finally {
+			inFile.close();
+		}
+		return isPassing;
+	}
+
+	public static void main(String[] args) throws FileNotFoundException {
+		if (args.length > 0 && args[0].equals("-verify")) {
+			if (!verify(args.length > 1 ? args[1] : RESULTS_FILE))
+				System.exit(1);
+			return;
+		}
+
+		boolean isChecking = args.length > 0 && args[0].equals("-check");
+		int first = isChecking ? 1 : 0;
+		int depth = args.length > first ? Integer.parseInt(args[first]) : DEFAULT_DEPTH;
+		int[] players = parsePlayers(args.length > first + 1 ? args[first + 1] : DEFAULT_PLAYERS);
+		String positionFile = args.length > first + 2 ? args[first + 2] : null;
+		run(depth, players, positionFile, isChecking);
+	}
+
+}
@@ -0,0 +1,160 @@
+/** The Ponderer Class
+ *  Keeps a search engine thinking on a background thread while the other players move. The moves the players
+ *  before our turn are most likely to make (each one's move that gains the most distance) are played on a copy of
+ *  the board, and the position they lead to is searched until it is our turn. The search shares the engine's
+ *  transposition table, so when the position does come up the real search finds deep results already stored.
+ *  A move that was not predicted stops the search and starts one from the position it led to (the results
+ *  already stored are kept, since they may still be reached)
+ */
+
+public class Ponderer {
+
+	private SearchEngine engine;
+	private int player;
+	private Thread thread;
+
+	// The moves expected before our turn, how many of them have been played, and the hash of the position they
+	// lead to with us to move
+	private int[] predicted = new int[Board.NUM_PLAYERS];
+	private int numPredicted;
+	private int numPlayed;
+	private long ponderHash;
+
+	private int[] moves = new int[Board.MAX_MOVES];
+	private int hits;
+	private int misses;
+
+	/** Creates a ponderer for a search engine
+	 *  Precondition: player is the player the engine chooses moves for
+	 *  @param engine the engine to search with (its nextMove must only be called while the ponderer is stopped)
+	 *  @param player the player the engine chooses moves for
+	 */
+	public Ponderer(SearchEngine engine, int player) {
+		this.engine = engine;
+		this.player = player;
+	}
+
+	/** Follows a move reported by the server: pondering carries on if the move was the one expected, and
+	 *  starts again from the new position otherwise
+	 *  Precondition: the move has been made on board, and the ponderer's search has not been stopped since the
+	 *  last move was reported (unless it is our turn)
+	 *  Postcondition: a search of the position expected at our next turn is running
+	 *  @param board the current state of the game (it is not changed)
+	 *  @param originalRow the row of the piece that moved
+	 *  @param originalColumn the column of the piece that moved
+	 *  @param newRow the row the piece moved to
+	 *  @param newColumn the column the piece moved to
+	 */
+	public void movePlayed(Board board, int originalRow, int originalColumn, int newRow, int newColumn) {
+		int move = Board.encodeMove(Board.getCell(originalRow, originalColumn), Board.getCell(newRow, newColumn));
+		if (thread != null && numPlayed < numPredicted && predicted[numPlayed] == move) {
+			numPlayed++;
+			return;
+		}
+		stop();
+		start(board, board.getPiece(Board.getCell(newRow, newColumn)));
+	}
+
+	/** Stops the search and waits for its thread to finish, so that the engine can be used on this thread
+	 *  Postcondition: no search is running
+	 */
+	public void stop() {
+		if (thread == null)
+			return;
+		engine.stop();
+		try {
+			thread.join();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		thread = null;
+	}
+
+	/** Stops pondering at the start of our turn and counts whether the position searched was the one reached
+	 *  Precondition: board has us to move
+	 *  Postcondition: no search is running
+	 *  @param board the current state of the game
+	 *  @return true if the position searched was the current one, false otherwise (or if nothing was searched)
+	 */
+	public boolean stopForTurn(Board board) {
+		boolean wasPondering = thread != null;
+		stop();
+		if (!wasPondering)
+			return false;
+		boolean isHit = ponderHash == board.getHash();
+		if (isHit)
+			hits++;
+		else
+			misses++;
+		System.out.println("Ponder " + (isHit ? "hit" : "miss") + " (" + hits + " hits, " + misses + " misses)");
+		return isHit;
+	}
+
+	/** Predicts the moves of the players before our turn and starts searching the position they lead to
+	 *  Postcondition: a search is running on a new thread
+	 *  @param board the current state of the game (it is not changed)
+	 *  @param lastMover the player that made the last move
+	 */
+	private void start(Board board, int lastMover) {
+		final Board position = new Board(board);
+		numPredicted = 0;
+		numPlayed = 0;
+		int mover = getNextPlayer(position, lastMover);
+		while (mover != player && mover != 0 && numPredicted < predicted.length) {
+			int move = predictMove(position, mover);
+			if (move == 0)
+				break;
+			position.makeMove(Board.getMoveFrom(move), Board.getMoveTo(move));
+			predicted[numPredicted++] = move;
+			mover = getNextPlayer(position, mover);
+		}
+		position.setSideToMove(player);
+		ponderHash = position.getHash();
+
+		// Cleared here rather than on the new thread, so that a stop made as soon as this returns is not lost
+		engine.resetStop();
+		thread = new Thread(new Runnable() {
+			public void run() {
+				engine.ponder(position);
+			}
+		}, "Ponder");
+		// The search must not keep the program running once the game is over
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/** Finds the next player in turn order that has pieces on the board
+	 *  @param board the state of the game
+	 *  @param player the player that moved last
+	 *  @return the player to move next, or 0 if nobody has pieces on the board
+	 */
+	private static int getNextPlayer(Board board, int player) {
+		for (int i = 1; i <= Board.NUM_PLAYERS; i++) {
+			int next = (player + i - 1) % Board.NUM_PLAYERS + 1;
+			if (board.getPieceCount(next) > 0)
+				return next;
+		}
+		return 0;
+	}
+
+	/** Predicts a player's move as the one that takes a piece furthest towards its target corner
+	 *  @param board the state of the game
+	 *  @param mover the player to move
+	 *  @return the move, packed with Board.encodeMove, or 0 if the player has no move
+	 */
+	private int predictMove(Board board, int mover) {
+		int count = board.generateMoves(mover, moves);
+		int bestMove = 0, bestGain = Integer.MIN_VALUE;
+		for (int i = 0; i < count; i++) {
+			int gain = Board.getTargetDistance(Board.getMoveFrom(moves[i]), mover) -
+					Board.getTargetDistance(Board.getMoveTo(moves[i]), mover);
+			if (gain > bestGain) {
+				bestGain = gain;
+				bestMove = moves[i];
+			}
+		}
+		return bestMove;
+	}
+
+}
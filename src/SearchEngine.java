@@ -0,0 +1,839 @@
+/** The Search Engine Class
+ *  Chooses moves by looking several moves ahead with an iterative-deepening search backed by a transposition
+ *  table. Positions are scored by an Evaluator, by default how far each player's pieces are from the far corner of
+ *  the home they are trying to reach. The search mode decides how the other players are modelled:
+ *  SINGLE searches only our own consecutive moves (the opponents' pieces are treated as fixed),
+ *  PARANOID searches every seat in turn order with all opponents minimising our score,
+ *  MAX_N searches every seat in turn order with each player maximising its own score (with shallow pruning),
+ *  BEST_REPLY alternates our moves with the single strongest reply from any opponent
+ */
+
+public class SearchEngine implements Engine {
+
+	public static final int SINGLE = 0;
+	public static final int PARANOID = 1;
+	public static final int MAX_N = 2;
+	public static final int BEST_REPLY = 3;
+
+	// Names of the modes, indexed by mode
+	public static final String[] MODE_NAMES = { "search", "paranoid", "maxn", "brs" };
+	// Names of the evaluators that can be chosen by name (see createEvaluator)
+	public static final String[] EVALUATOR_NAMES = { "distance", "straggler", "squared", "blocked", "ladder",
+			"weighted" };
+
+	public static final int DEFAULT_MAX_DEPTH = 3;
+	// The deepest a timed search will go
+	public static final int MAX_DEPTH = 64;
+
+	// Number of interior nodes searched between checks of the clock
+	private static final int TIME_CHECK_INTERVAL = 256;
+
+	// Score of a position where all our pieces are in the target home in SINGLE mode (more for reaching it sooner)
+	public static final int WIN_SCORE = 1000000;
+	private static final int INFINITY = 10000000;
+
+	// In the multi-player modes each player's value is the evaluator's highest cost minus its cost, plus WIN_BONUS
+	// (and the depth left) once all its pieces are in the target home
+	private static final int WIN_BONUS = 1000;
+
+	private int player;
+	private int mode;
+	private int maxDepth;
+	private long timeLimit;
+	private TranspositionTable table;
+
+	// When the current search has to stop (in System.nanoTime), and whether it has been stopped
+	private long deadline;
+	private volatile boolean stopped;
+	private int nodesUntilTimeCheck;
+
+	// The copy of the board being searched, and the target counts of each player's pieces on it
+	private Board board;
+	private int[] piecesInTarget = new int[Board.NUM_PLAYERS + 1];
+	private int[] pieceCount = new int[Board.NUM_PLAYERS + 1];
+
+	// Scores the search board, kept up to date as moves are made and taken back, and the most its cost can drop in
+	// one move and its highest cost
+	private Evaluator evaluator = new DistanceEvaluator();
+	private int maxGain;
+	private int maxCost;
+
+	// The players in the game in turn order, starting with us
+	private int[] order = new int[Board.NUM_PLAYERS];
+	private int numPlayers;
+
+	// The moves generated at each depth, and the utilities of each player found at each depth in MAX_N mode
+	private int[][] moves;
+	private int[][] utilities;
+	// Utilities are shifted by utilityOffset so none is negative, and always add up to maxUtilitySum
+	private int utilityOffset;
+	private int maxUtilitySum;
+
+	// Orders the moves at the root and in the paranoid and best-reply searches (unless ordering is turned off, when
+	// only the table move is searched first)
+	private MoveOrderer orderer;
+	private boolean isOrdering = true;
+	// The depth of the current iteration, so that a node's distance from the root is rootDepth minus its depth
+	private int rootDepth;
+
+	private long nodes;
+	private int completedDepth;
+	// Whether each search prints its depth, score and speed
+	private boolean isReporting = true;
+
+	/** Creates a search engine for a game
+	 *  Precondition: player is between 1 and Board.NUM_PLAYERS inclusive, mode is SINGLE, PARANOID, MAX_N or
+	 *  BEST_REPLY, maxDepth is between 1 and MAX_DEPTH inclusive, and timeLimit >= 0
+	 *  Postcondition: an engine that searches up to maxDepth moves ahead within timeLimit has been created
+	 *  @param player the player to choose moves for
+	 *  @param mode how the other players are modelled
+	 *  @param maxDepth the most moves to look ahead
+	 *  @param timeLimit the time each move may take in milliseconds, or 0 for no limit
+	 */
+	public SearchEngine(int player, int mode, int maxDepth, long timeLimit) {
+		this(player, mode, maxDepth, timeLimit, TranspositionTable.DEFAULT_SIZE_BITS);
+	}
+
+	/** Creates a search engine for a game with a transposition table of a given size, for engines that only
+	 *  make shallow searches and are made by the hundred (such as Tuner's players)
+	 *  Precondition: as for the constructor without tableSizeBits, and tableSizeBits is between 1 and 30 inclusive
+	 *  Postcondition: an engine that searches up to maxDepth moves ahead within timeLimit has been created
+	 *  @param player the player to choose moves for
+	 *  @param mode how the other players are modelled
+	 *  @param maxDepth the most moves to look ahead
+	 *  @param timeLimit the time each move may take in milliseconds, or 0 for no limit
+	 *  @param tableSizeBits the base 2 logarithm of the number of transposition table entries
+	 */
+	public SearchEngine(int player, int mode, int maxDepth, long timeLimit, int tableSizeBits) {
+		this.player = player;
+		this.mode = mode;
+		this.maxDepth = maxDepth;
+		this.timeLimit = timeLimit;
+		table = new TranspositionTable(tableSizeBits);
+		moves = new int[maxDepth + 1][Board.MAX_MOVES];
+		orderer = new MoveOrderer(maxDepth);
+		utilities = new int[maxDepth + 1][Board.NUM_PLAYERS + 1];
+	}
+
+	/** Creates a search engine for a game with no time limit
+	 *  @param player the player to choose moves for
+	 *  @param mode how the other players are modelled
+	 *  @param maxDepth the number of moves to look ahead
+	 */
+	public SearchEngine(int player, int mode, int maxDepth) {
+		this(player, mode, maxDepth, 0);
+	}
+
+	/** Creates a search engine for a game that looks DEFAULT_MAX_DEPTH moves ahead
+	 *  @param player the player to choose moves for
+	 *  @param mode how the other players are modelled
+	 */
+	public SearchEngine(int player, int mode) {
+		this(player, mode, DEFAULT_MAX_DEPTH);
+	}
+
+	/** Creates a search engine for a game that looks DEFAULT_MAX_DEPTH of our own moves ahead
+	 *  @param player the player to choose moves for
+	 */
+	public SearchEngine(int player) {
+		this(player, SINGLE);
+	}
+
+	/** Finds the mode with a name
+	 *  @param name one of MODE_NAMES
+	 *  @return the mode
+	 *  @throws IllegalArgumentException if the name is not recognised
+	 */
+	public static int getMode(String name) {
+		for (int mode = 0; mode < MODE_NAMES.length; mode++)
+			if (MODE_NAMES[mode].equals(name))
+				return mode;
+		throw new IllegalArgumentException("Unknown search mode: " + name);
+	}
+
+	/** Creates an evaluator by name
+	 *  @param name one of EVALUATOR_NAMES
+	 *  @return the new evaluator
+	 *  @throws IllegalArgumentException if the name is not recognised
+	 */
+	public static Evaluator createEvaluator(String name) {
+		if (name.equals("distance"))
+			return new DistanceEvaluator();
+		if (name.equals("straggler"))
+			return new StragglerEvaluator();
+		if (name.equals("squared"))
+			return new SquaredDistanceEvaluator();
+		if (name.equals("blocked"))
+			return new BlockedEvaluator();
+		if (name.equals("ladder"))
+			return new LadderEvaluator();
+		if (name.equals("weighted"))
+			return new WeightedEvaluator();
+		throw new IllegalArgumentException("Unknown evaluator: " + name);
+	}
+
+	/** Searches one more move ahead each iteration, up to maxDepth, and returns the best move of the deepest
+	 *  iteration. With a time limit, no iteration is started after half of it has gone, and an iteration still
+	 *  running at the limit is stopped and only used for moves it finished searching
+	 *  @param board the current state of the game (it is not changed)
+	 *  @return the row and column of the piece to move followed by the row and column of its destination,
+	 *  or null if there is no move
+	 */
+	public int[] nextMove(Board board) {
+		stopped = false;
+		return searchPosition(board, timeLimit, "Search");
+	}
+
+	/** Searches a position with no time limit, one more move ahead each iteration up to maxDepth, until stop is
+	 *  called. Meant to be run on another thread while the other players move (see Ponderer), so that the
+	 *  transposition table holds deep results when nextMove is called. The two must never run at the same time
+	 *  Precondition: resetStop has been called since the last call to stop, on the thread that will call stop
+	 *  @param board the position to search (it is not changed)
+	 *  @return the best move of the deepest iteration, as for nextMove, or null if there is no move
+	 */
+	public int[] ponder(Board board) {
+		return searchPosition(board, 0, "Ponder");
+	}
+
+	/** Runs the iterative-deepening search of nextMove and ponder
+	 *  @param board the position to search (it is not changed)
+	 *  @param limit the time the search may take in milliseconds, or 0 for no limit
+	 *  @param label the name of the search in the line printed at the end
+	 *  @return the best move of the deepest iteration, or null if there is no move
+	 */
+	private int[] searchPosition(Board board, long limit, String label) {
+		this.board = new Board(board);
+		this.board.setSideToMove(player);
+		numPlayers = 0;
+		for (int seat = 0; seat < Board.NUM_PLAYERS; seat++) {
+			int colour = (player + seat - 1) % Board.NUM_PLAYERS + 1;
+			pieceCount[colour] = this.board.getPieceCount(colour);
+			piecesInTarget[colour] = 0;
+			for (int piece = 0; piece < pieceCount[colour]; piece++)
+				if (Board.isTargetHome(this.board.getPieceCell(colour, piece), colour))
+					piecesInTarget[colour]++;
+			// Players that have already finished take no part in the search
+			if (colour == player || (pieceCount[colour] > 0 && piecesInTarget[colour] < pieceCount[colour]))
+				order[numPlayers++] = colour;
+		}
+		// With nobody else on the board every mode is a search of our own moves
+		int searchMode = numPlayers == 1 ? SINGLE : mode;
+		evaluator.reset(this.board);
+		maxGain = evaluator.getMaxGain();
+		maxCost = evaluator.getMaxCost();
+		utilityOffset = (numPlayers - 1) * (maxCost + WIN_BONUS + maxDepth);
+		maxUtilitySum = numPlayers * utilityOffset;
+
+		nodes = 0;
+		if (isOrdering)
+			orderer.newSearch();
+		long start = System.nanoTime();
+		deadline = limit > 0 ? start + limit * 1000000 : Long.MAX_VALUE;
+		nodesUntilTimeCheck = TIME_CHECK_INTERVAL;
+		int bestMove = 0, bestScore = 0;
+		completedDepth = 0;
+		for (int depth = 1; depth <= maxDepth; depth++) {
+			int move = searchRoot(searchMode, depth, bestMove);
+			if (stopped) {
+				// The last best move was searched first, so any move that replaced it was searched fully and is better
+				if (move != 0)
+					bestMove = move;
+				break;
+			}
+			bestMove = move;
+			completedDepth = depth;
+			bestScore = TranspositionTable.getScore(table.probe(this.board.getHash()));
+			// The next iteration takes several times as long as this one, so it would not finish in the time left
+			if (limit > 0 && System.nanoTime() - start > limit * 1000000 / 2)
+				break;
+		}
+		long time = System.nanoTime() - start;
+		if (isReporting)
+			System.out.println(label + " (" + MODE_NAMES[searchMode] + "): depth " + completedDepth + (stopped ? " (stopped)" : "") +
+					", score " + bestScore + ", " + nodes + " nodes in " + time / 1000000 + " ms" +
+					(limit > 0 ? " of " + limit + " ms" : "") + " (" + (long)(nodes / (time / 1e9)) + " nodes/sec)");
+
+		if (bestMove == 0)
+			return null;
+		int from = Board.getMoveFrom(bestMove), to = Board.getMoveTo(bestMove);
+		return new int[] { Board.getRow(from), Board.getColumn(from), Board.getRow(to), Board.getColumn(to) };
+	}
+
+	/** Does nothing, since the transposition table is keyed on positions and needs no updating between moves
+	 *  @param originalRow the row of the piece that moved
+	 *  @param originalColumn the column of the piece that moved
+	 *  @param newRow the row the piece moved to
+	 *  @param newColumn the column the piece moved to
+	 */
+	public void movePlayed(int originalRow, int originalColumn, int newRow, int newColumn) {
+	}
+
+	/** Searches every one of our moves at the root
+	 *  @param searchMode the mode to search the moves with
+	 *  @param depth the number of moves to look ahead
+	 *  @param firstMove the move to search first (the best move of the last iteration), or 0
+	 *  @return the best move, or 0 if there is no move
+	 */
+	private int searchRoot(int searchMode, int depth, int firstMove) {
+		rootDepth = depth;
+		int[] rootMoves = moves[depth];
+		int count = board.generateMoves(player, rootMoves);
+		orderMoves(rootMoves, count, player, depth, firstMove);
+
+		int bestMove = 0, alpha = -INFINITY;
+		for (int i = 0; i < count; i++) {
+			makeMove(player, rootMoves[i]);
+			int score;
+			if (searchMode == SINGLE)
+				score = search(depth - 1, alpha, INFINITY);
+			else if (searchMode == PARANOID) {
+				board.setSideToMove(order[1]);
+				score = searchParanoid(depth - 1, 1, alpha, INFINITY);
+			}
+			else if (searchMode == MAX_N) {
+				board.setSideToMove(order[1]);
+				searchMaxN(depth - 1, 1, alpha);
+				score = utilities[depth - 1][player];
+			}
+			else {
+				board.setSideToMove(0);
+				score = searchBestReply(depth - 1, false, alpha, INFINITY);
+			}
+			unmakeMove(player, rootMoves[i]);
+			if (stopped)
+				break;
+			if (score > alpha) {
+				alpha = score;
+				bestMove = rootMoves[i];
+			}
+		}
+		if (!stopped)
+			table.store(board.getHash(), depth, alpha, TranspositionTable.EXACT, bestMove);
+		return bestMove;
+	}
+
+	/** Finds the best score we can reach in some number of our own moves
+	 *  @param depth the number of moves left to look ahead
+	 *  @param alpha the score we are already guaranteed elsewhere in the tree
+	 *  @param beta the score above which this position will not be chosen
+	 *  @return the score of the position, or a bound on it outside (alpha, beta)
+	 */
+	private int search(int depth, int alpha, int beta) {
+		nodes++;
+		if (isStopped())
+			return 0;
+		int count = pieceCount[player];
+		if (piecesInTarget[player] == count)
+			return WIN_SCORE + depth;
+		int standing = -evaluator.getCost(player);
+		if (depth == 0)
+			return standing;
+
+		// No sequence of moves can gain more than maxGain per move, or win while more pieces are outside than
+		// there are moves left
+		if (count - piecesInTarget[player] > depth && standing + depth * maxGain <= alpha)
+			return standing + depth * maxGain;
+
+		long key = board.getHash();
+		long entry = table.probe(key);
+		int tableMove = 0;
+		if (entry != TranspositionTable.NOT_FOUND) {
+			tableMove = TranspositionTable.getMove(entry);
+			if (isCutoff(entry, depth, alpha, beta))
+				return TranspositionTable.getScore(entry);
+		}
+
+		int[] nodeMoves = moves[depth];
+		int numMoves = board.generateMoves(player, nodeMoves);
+		if (numMoves == 0)
+			return standing;
+
+		int best = -INFINITY, bestMove = 0, originalAlpha = alpha;
+		if (depth == 1) {
+			// Score the last move of each line without making it
+			nodes += numMoves;
+			for (int i = 0; i < numMoves; i++) {
+				int from = Board.getMoveFrom(nodeMoves[i]), to = Board.getMoveTo(nodeMoves[i]);
+				updateCounts(player, from, to);
+				int score = piecesInTarget[player] == count ? WIN_SCORE : -evaluator.getCost(player);
+				updateCounts(player, to, from);
+				if (score > best) {
+					best = score;
+					bestMove = nodeMoves[i];
+				}
+			}
+		}
+		else {
+			moveToFront(nodeMoves, numMoves, tableMove);
+			for (int i = 0; i < numMoves && best < beta; i++) {
+				makeMove(player, nodeMoves[i]);
+				int score = search(depth - 1, Math.max(alpha, best), beta);
+				unmakeMove(player, nodeMoves[i]);
+				if (stopped)
+					return 0;
+				if (score > best) {
+					best = score;
+					bestMove = nodeMoves[i];
+				}
+			}
+		}
+
+		storeBound(key, depth, best, originalAlpha, beta, bestMove);
+		return best;
+	}
+
+	/** Finds our score with every seat moving in turn and every opponent playing to minimise it
+	 *  @param depth the number of moves left to look ahead
+	 *  @param seat the index in the turn order of the player to move
+	 *  @param alpha the score we are already guaranteed elsewhere in the tree
+	 *  @param beta the score the opponents are already guaranteed elsewhere in the tree
+	 *  @return the score of the position, or a bound on it outside (alpha, beta)
+	 */
+	private int searchParanoid(int depth, int seat, int alpha, int beta) {
+		nodes++;
+		if (isStopped())
+			return 0;
+		if (depth == 0 || isGameOver())
+			return getRelativeValue(player, depth);
+
+		long key = board.getHash();
+		long entry = table.probe(key);
+		int tableMove = 0;
+		if (entry != TranspositionTable.NOT_FOUND) {
+			tableMove = TranspositionTable.getMove(entry);
+			if (isCutoff(entry, depth, alpha, beta))
+				return TranspositionTable.getScore(entry);
+		}
+
+		int mover = order[seat];
+		int nextSeat = (seat + 1) % numPlayers;
+		boolean isMaximising = mover == player;
+		int[] nodeMoves = moves[depth];
+		int numMoves = board.generateMoves(mover, nodeMoves);
+		if (numMoves == 0) {
+			board.setSideToMove(order[nextSeat]);
+			int score = searchParanoid(depth - 1, nextSeat, alpha, beta);
+			board.setSideToMove(mover);
+			return score;
+		}
+
+		int best = isMaximising ? -INFINITY : INFINITY, bestMove = 0;
+		orderMoves(nodeMoves, numMoves, mover, depth, tableMove);
+		for (int i = 0; i < numMoves && (isMaximising ? best < beta : best > alpha); i++) {
+			int score;
+			if (depth == 1)
+				score = scoreLeaf(mover, nodeMoves[i]);
+			else {
+				makeMove(mover, nodeMoves[i]);
+				board.setSideToMove(order[nextSeat]);
+				if (isMaximising)
+					score = searchParanoid(depth - 1, nextSeat, Math.max(alpha, best), beta);
+				else
+					score = searchParanoid(depth - 1, nextSeat, alpha, Math.min(beta, best));
+				unmakeMove(mover, nodeMoves[i]);
+				if (stopped)
+					return 0;
+			}
+			if (isMaximising ? score > best : score < best) {
+				best = score;
+				bestMove = nodeMoves[i];
+			}
+		}
+		if (isMaximising ? best >= beta : best <= alpha)
+			addCutoff(mover, bestMove, depth);
+
+		storeBound(key, depth, best, alpha, beta, bestMove);
+		return best;
+	}
+
+	/** Finds the utility of every player with every seat moving in turn and each player maximising its own
+	 *  utility, and stores them in utilities[depth]. A branch is cut off as soon as the player to move has
+	 *  enough utility that the player before it cannot do better than it already has elsewhere (shallow pruning)
+	 *  @param depth the number of moves left to look ahead
+	 *  @param seat the index in the turn order of the player to move
+	 *  @param parentBest the utility the player before this one is already guaranteed, or less than 0 for none
+	 */
+	private void searchMaxN(int depth, int seat, int parentBest) {
+		nodes++;
+		if (isStopped())
+			return;
+		int[] result = utilities[depth];
+		if (depth == 0 || isGameOver()) {
+			for (int i = 0; i < numPlayers; i++)
+				result[order[i]] = getRelativeValue(order[i], depth) + utilityOffset;
+			return;
+		}
+
+		int mover = order[seat];
+		int nextSeat = (seat + 1) % numPlayers;
+		int[] nodeMoves = moves[depth];
+		int numMoves = board.generateMoves(mover, nodeMoves);
+		if (numMoves == 0) {
+			board.setSideToMove(order[nextSeat]);
+			searchMaxN(depth - 1, nextSeat, parentBest);
+			board.setSideToMove(mover);
+			if (stopped)
+				return;
+			System.arraycopy(utilities[depth - 1], 0, result, 0, result.length);
+			return;
+		}
+
+		long key = board.getHash();
+		long entry = table.probe(key);
+		if (entry != TranspositionTable.NOT_FOUND)
+			moveToFront(nodeMoves, numMoves, TranspositionTable.getMove(entry));
+
+		int best = -1, bestMove = 0;
+		for (int i = 0; i < numMoves && best < maxUtilitySum - parentBest; i++) {
+			int from = Board.getMoveFrom(nodeMoves[i]), to = Board.getMoveTo(nodeMoves[i]);
+			boolean isWin;
+			if (depth == 1) {
+				// Score the last move of each line without making it
+				nodes++;
+				updateCounts(mover, from, to);
+				for (int j = 0; j < numPlayers; j++)
+					utilities[0][order[j]] = getRelativeValue(order[j], 0) + utilityOffset;
+				isWin = piecesInTarget[mover] == pieceCount[mover];
+				updateCounts(mover, to, from);
+			}
+			else {
+				makeMove(mover, nodeMoves[i]);
+				board.setSideToMove(order[nextSeat]);
+				searchMaxN(depth - 1, nextSeat, best);
+				isWin = piecesInTarget[mover] == pieceCount[mover];
+				unmakeMove(mover, nodeMoves[i]);
+				if (stopped)
+					return;
+			}
+			if (utilities[depth - 1][mover] > best) {
+				best = utilities[depth - 1][mover];
+				bestMove = nodeMoves[i];
+				System.arraycopy(utilities[depth - 1], 0, result, 0, result.length);
+			}
+			// Nothing beats winning now
+			if (isWin)
+				break;
+		}
+
+		// Only the move is used from the table in this mode
+		table.store(key, depth, 0, TranspositionTable.EXACT, bestMove);
+	}
+
+	/** Finds our score with our moves alternating with the single strongest reply from any opponent
+	 *  @param depth the number of moves left to look ahead
+	 *  @param isOurTurn whether we are to move, rather than the opponents
+	 *  @param alpha the score we are already guaranteed elsewhere in the tree
+	 *  @param beta the score the opponents are already guaranteed elsewhere in the tree
+	 *  @return the score of the position, or a bound on it outside (alpha, beta)
+	 */
+	private int searchBestReply(int depth, boolean isOurTurn, int alpha, int beta) {
+		nodes++;
+		if (isStopped())
+			return 0;
+		if (depth == 0 || isGameOver())
+			return getRelativeValue(player, depth);
+
+		long key = board.getHash();
+		long entry = table.probe(key);
+		int tableMove = 0;
+		if (entry != TranspositionTable.NOT_FOUND) {
+			tableMove = TranspositionTable.getMove(entry);
+			if (isCutoff(entry, depth, alpha, beta))
+				return TranspositionTable.getScore(entry);
+		}
+
+		int[] nodeMoves = moves[depth];
+		int best, bestMove = 0;
+		if (isOurTurn) {
+			int numMoves = board.generateMoves(player, nodeMoves);
+			if (numMoves == 0)
+				return getRelativeValue(player, depth);
+			orderMoves(nodeMoves, numMoves, player, depth, tableMove);
+			best = -INFINITY;
+			for (int i = 0; i < numMoves && best < beta; i++) {
+				int score;
+				if (depth == 1)
+					score = scoreLeaf(player, nodeMoves[i]);
+				else {
+					makeMove(player, nodeMoves[i]);
+					board.setSideToMove(0);
+					score = searchBestReply(depth - 1, false, Math.max(alpha, best), beta);
+					unmakeMove(player, nodeMoves[i]);
+					if (stopped)
+						return 0;
+				}
+				if (score > best) {
+					best = score;
+					bestMove = nodeMoves[i];
+				}
+			}
+			if (best >= beta)
+				addCutoff(player, bestMove, depth);
+		}
+		else {
+			// Every opponent's moves compete to be the one reply
+			best = INFINITY;
+			int bestOpponent = 0;
+			boolean hasMoves = false;
+			for (int seat = 1; seat < numPlayers && best > alpha; seat++) {
+				int opponent = order[seat];
+				int numMoves = board.generateMoves(opponent, nodeMoves);
+				hasMoves |= numMoves > 0;
+				orderMoves(nodeMoves, numMoves, opponent, depth, tableMove);
+				for (int i = 0; i < numMoves && best > alpha; i++) {
+					int score;
+					if (depth == 1)
+						score = scoreLeaf(opponent, nodeMoves[i]);
+					else {
+						makeMove(opponent, nodeMoves[i]);
+						board.setSideToMove(player);
+						score = searchBestReply(depth - 1, true, alpha, Math.min(beta, best));
+						unmakeMove(opponent, nodeMoves[i]);
+						if (stopped)
+							return 0;
+					}
+					if (score < best) {
+						best = score;
+						bestMove = nodeMoves[i];
+						bestOpponent = opponent;
+					}
+				}
+			}
+			if (best <= alpha)
+				addCutoff(bestOpponent, bestMove, depth);
+			if (!hasMoves) {
+				board.setSideToMove(player);
+				best = searchBestReply(depth - 1, true, alpha, beta);
+				board.setSideToMove(0);
+				if (stopped)
+					return 0;
+			}
+		}
+
+		storeBound(key, depth, best, alpha, beta, bestMove);
+		return best;
+	}
+
+	/** Checks the clock every TIME_CHECK_INTERVAL interior nodes and stops the search once the deadline has passed
+	 *  @return true if the search has been stopped, false otherwise
+	 */
+	private boolean isStopped() {
+		if (--nodesUntilTimeCheck <= 0) {
+			nodesUntilTimeCheck = TIME_CHECK_INTERVAL;
+			if (System.nanoTime() >= deadline)
+				stopped = true;
+		}
+		return stopped;
+	}
+
+	/** Stops the search in progress, which then returns the best move it has found so far
+	 *  Postcondition: the stop flag has been raised (nextMove clears it, and ponder needs resetStop to clear it)
+	 */
+	public void stop() {
+		stopped = true;
+	}
+
+	/** Clears the stop flag before a call to ponder. It must be called on the thread that will call stop, before
+	 *  the pondering thread is started, so that a stop raised at any time after it is never lost
+	 *  Postcondition: the stop flag has been cleared
+	 */
+	public void resetStop() {
+		stopped = false;
+	}
+
+	/** Scores the position after a move at the last depth of a paranoid or best-reply search, without making the
+	 *  move on the board
+	 *  @param mover the player making the move
+	 *  @param move the move, packed with Board.encodeMove
+	 *  @return our score after the move
+	 */
+	private int scoreLeaf(int mover, int move) {
+		nodes++;
+		int from = Board.getMoveFrom(move), to = Board.getMoveTo(move);
+		updateCounts(mover, from, to);
+		int score = getRelativeValue(player, 0);
+		updateCounts(mover, to, from);
+		return score;
+	}
+
+	/** Gets how far ahead a player is of the average of all the players in the game
+	 *  @param colour the player to score
+	 *  @param depth the number of moves left to look ahead (finishing with more left is worth more)
+	 *  @return numPlayers times the player's value minus the sum of every player's value
+	 */
+	private int getRelativeValue(int colour, int depth) {
+		int sum = 0;
+		for (int i = 0; i < numPlayers; i++)
+			sum += getValue(order[i], depth);
+		return numPlayers * getValue(colour, depth) - sum;
+	}
+
+	/** Gets a player's value in the multi-player modes
+	 *  @param colour the player to score
+	 *  @param depth the number of moves left to look ahead
+	 *  @return a value between 0 and maxCost + WIN_BONUS + maxDepth inclusive
+	 */
+	private int getValue(int colour, int depth) {
+		int value = maxCost - evaluator.getCost(colour);
+		if (piecesInTarget[colour] == pieceCount[colour])
+			value += WIN_BONUS + depth;
+		return value;
+	}
+
+	/** Checks whether any player has all its pieces in its target home
+	 *  @return true if the game is over, false otherwise
+	 */
+	private boolean isGameOver() {
+		for (int i = 0; i < numPlayers; i++)
+			if (piecesInTarget[order[i]] == pieceCount[order[i]])
+				return true;
+		return false;
+	}
+
+	/** Checks whether a table entry settles the score of a position without searching it
+	 *  @param entry an entry returned by probe
+	 *  @param depth the number of moves left to look ahead
+	 *  @param alpha the lower end of the search window
+	 *  @param beta the upper end of the search window
+	 *  @return true if the entry's score can be returned, false otherwise
+	 */
+	private static boolean isCutoff(long entry, int depth, int alpha, int beta) {
+		if (TranspositionTable.getDepth(entry) < depth)
+			return false;
+		int score = TranspositionTable.getScore(entry);
+		int flag = TranspositionTable.getFlag(entry);
+		return flag == TranspositionTable.EXACT || (flag == TranspositionTable.LOWER_BOUND && score >= beta)
+				|| (flag == TranspositionTable.UPPER_BOUND && score <= alpha);
+	}
+
+	/** Stores a searched score in the table as exact or as a bound, depending on where it fell in the window
+	 *  @param key the hash of the position
+	 *  @param depth the number of moves searched below the position
+	 *  @param score the score found
+	 *  @param alpha the lower end of the search window
+	 *  @param beta the upper end of the search window
+	 *  @param move the best move found
+	 */
+	private void storeBound(long key, int depth, int score, int alpha, int beta, int move) {
+		int flag = TranspositionTable.EXACT;
+		if (score <= alpha)
+			flag = TranspositionTable.UPPER_BOUND;
+		else if (score >= beta)
+			flag = TranspositionTable.LOWER_BOUND;
+		table.store(key, depth, score, flag, move);
+	}
+
+	/** Makes a move on the search board and updates the evaluator and target counts
+	 *  @param mover the player making the move
+	 *  @param move the move, packed with Board.encodeMove
+	 */
+	private void makeMove(int mover, int move) {
+		int from = Board.getMoveFrom(move), to = Board.getMoveTo(move);
+		board.makeMove(from, to);
+		updateCounts(mover, from, to);
+	}
+
+	/** Takes back a move on the search board and restores the evaluator and target counts
+	 *  @param mover the player that made the move
+	 *  @param move the move, packed with Board.encodeMove
+	 */
+	private void unmakeMove(int mover, int move) {
+		int from = Board.getMoveFrom(move), to = Board.getMoveTo(move);
+		board.unmakeMove();
+		updateCounts(mover, to, from);
+	}
+
+	/** Updates the evaluator and a player's target count for one of its pieces moving
+	 *  @param mover the player whose piece moves
+	 *  @param from the cell the piece moves from
+	 *  @param to the cell the piece moves to
+	 */
+	private void updateCounts(int mover, int from, int to) {
+		evaluator.movePiece(mover, from, to);
+		if (Board.isTargetHome(from, mover))
+			piecesInTarget[mover]--;
+		if (Board.isTargetHome(to, mover))
+			piecesInTarget[mover]++;
+	}
+
+	/** Sorts the moves of a node into the order to search them
+	 *  @param moves the list of moves
+	 *  @param count the number of moves in the list
+	 *  @param mover the player making the moves
+	 *  @param depth the number of moves left to look ahead
+	 *  @param tableMove the move stored in the transposition table for the position, or 0 for none
+	 */
+	private void orderMoves(int[] moves, int count, int mover, int depth, int tableMove) {
+		if (isOrdering && depth > 1)
+			orderer.order(moves, count, mover, rootDepth - depth, tableMove);
+		else
+			moveToFront(moves, count, tableMove);
+	}
+
+	/** Tells the move orderer about a move that caused a cutoff
+	 *  @param mover the player that made the move
+	 *  @param move the move, packed with Board.encodeMove (or 0 for none)
+	 *  @param depth the number of moves that were left to look ahead
+	 */
+	private void addCutoff(int mover, int move, int depth) {
+		if (isOrdering && move != 0)
+			orderer.addCutoff(mover, move, rootDepth - depth, depth);
+	}
+
+	/** Moves a move to the front of a list so that it is searched first
+	 *  @param moves the list of moves
+	 *  @param count the number of moves in the list
+	 *  @param move the move to put at the front, or 0 for none
+	 */
+	private static void moveToFront(int[] moves, int count, int move) {
+		for (int i = 0; i < count && move != 0; i++) {
+			if (moves[i] == move) {
+				moves[i] = moves[0];
+				moves[0] = move;
+				return;
+			}
+		}
+	}
+
+	/** Turns the ordering of moves by killers, history and distance gained on or off. With it off, only the move
+	 *  stored in the transposition table is searched first (for comparing node counts)
+	 *  Postcondition: later searches order their moves as chosen
+	 *  @param isEnabled whether to order moves
+	 */
+	public void setMoveOrdering(boolean isEnabled) {
+		isOrdering = isEnabled;
+	}
+
+	/** Turns the line each search prints on or off (for running many games at once)
+	 *  Postcondition: later searches print their results as chosen
+	 *  @param isEnabled whether to print the results of each search
+	 */
+	public void setReporting(boolean isEnabled) {
+		isReporting = isEnabled;
+	}
+
+	/** Sets how positions are scored. The transposition table is emptied, since its scores came from the old
+	 *  evaluator
+	 *  Postcondition: later searches score positions with the evaluator
+	 *  @param evaluator the evaluator to use (it must not be shared with another engine)
+	 */
+	public void setEvaluator(Evaluator evaluator) {
+		this.evaluator = evaluator;
+		table.clear();
+	}
+
+	/** Gets the number of positions searched by the last call to nextMove
+	 *  @return the number of nodes searched
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/** Gets the depth of the deepest iteration the last search finished
+	 *  @return the number of moves looked ahead, or 0 if not even the first iteration finished
+	 */
+	public int getCompletedDepth() {
+		return completedDepth;
+	}
+
+}
@@ -0,0 +1,61 @@
+/** The Squared Distance Evaluator Class
+ *  Scores each player by the sum of the squares of its pieces' distances from the far corner of its target home.
+ *  A walk taken by a piece far behind lowers the sum more than one taken by a piece near the target, so pieces
+ *  left behind are brought up before they are stranded. It is meant to be weighed against the total distance in a
+ *  WeightedEvaluator
+ */
+
+public class SquaredDistanceEvaluator implements Evaluator {
+
+	// Pieces can be 0 to MAX_DISTANCE walks from their target corner
+	private static final int MAX_DISTANCE = DistanceEvaluator.MAX_GAIN;
+
+	private int[] squaredSum = new int[Board.NUM_PLAYERS + 1];
+
+	/** Adds up the squares of each player's distances on a board
+	 *  Postcondition: getCost gives each player's sum of squared distances on the board
+	 *  @param board the position to score (it is not changed)
+	 */
+	public void reset(Board board) {
+		for (int player = 1; player <= Board.NUM_PLAYERS; player++) {
+			squaredSum[player] = 0;
+			for (int piece = 0; piece < board.getPieceCount(player); piece++) {
+				int distance = Board.getTargetDistance(board.getPieceCell(player, piece), player);
+				squaredSum[player] += distance * distance;
+			}
+		}
+	}
+
+	/** Updates the mover's sum of squared distances for one of its pieces moving
+	 *  @param mover the player whose piece moves
+	 *  @param from the cell the piece moves from
+	 *  @param to the cell the piece moves to
+	 */
+	public void movePiece(int mover, int from, int to) {
+		int fromDistance = Board.getTargetDistance(from, mover), toDistance = Board.getTargetDistance(to, mover);
+		squaredSum[mover] += toDistance * toDistance - fromDistance * fromDistance;
+	}
+
+	/** Gets a player's sum of squared distances
+	 *  @param player the player to score
+	 *  @return the sum of the squares of the player's pieces' distances from its target corner
+	 */
+	public int getCost(int player) {
+		return squaredSum[player];
+	}
+
+	/** Gets the most one move can lower the sum, by taking a piece from the furthest cell to the corner
+	 *  @return the square of the length of the board
+	 */
+	public int getMaxGain() {
+		return MAX_DISTANCE * MAX_DISTANCE;
+	}
+
+	/** Gets the highest sum a player can have
+	 *  @return the sum if every piece were as far as a piece can be from the target corner
+	 */
+	public int getMaxCost() {
+		return Board.PIECES_PER_PLAYER * MAX_DISTANCE * MAX_DISTANCE;
+	}
+
+}
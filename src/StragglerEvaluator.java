@@ -0,0 +1,77 @@
+/** The Straggler Evaluator Class
+ *  Scores each player by the distance of its rearmost piece from the far corner of its target home. A player
+ *  whose pieces advance together has no straggler to bring in alone at the end, when there is nothing left to
+ *  jump over. The number of pieces at each distance is kept so that the rearmost one is found without looking at
+ *  the pieces. It is meant to be weighed against the total distance in a WeightedEvaluator
+ */
+
+public class StragglerEvaluator implements Evaluator {
+
+	// Pieces can be 0 to MAX_DISTANCE walks from their target corner
+	private static final int MAX_DISTANCE = DistanceEvaluator.MAX_GAIN;
+
+	// The number of each player's pieces at each distance, and the distance of its rearmost piece
+	private int[][] piecesAtDistance = new int[Board.NUM_PLAYERS + 1][MAX_DISTANCE + 1];
+	private int[] rearmost = new int[Board.NUM_PLAYERS + 1];
+
+	/** Counts each player's pieces at each distance on a board
+	 *  Postcondition: getCost gives the distance of each player's rearmost piece on the board
+	 *  @param board the position to score (it is not changed)
+	 */
+	public void reset(Board board) {
+		for (int player = 1; player <= Board.NUM_PLAYERS; player++) {
+			int[] counts = piecesAtDistance[player];
+			for (int distance = 0; distance <= MAX_DISTANCE; distance++)
+				counts[distance] = 0;
+			rearmost[player] = 0;
+			for (int piece = 0; piece < board.getPieceCount(player); piece++) {
+				int distance = Board.getTargetDistance(board.getPieceCell(player, piece), player);
+				counts[distance]++;
+				rearmost[player] = Math.max(rearmost[player], distance);
+			}
+		}
+	}
+
+	/** Moves a piece between distance counts and finds the mover's rearmost piece again
+	 *  @param mover the player whose piece moves
+	 *  @param from the cell the piece moves from
+	 *  @param to the cell the piece moves to
+	 */
+	public void movePiece(int mover, int from, int to) {
+		int[] counts = piecesAtDistance[mover];
+		int fromDistance = Board.getTargetDistance(from, mover), toDistance = Board.getTargetDistance(to, mover);
+		counts[fromDistance]--;
+		counts[toDistance]++;
+		if (toDistance > rearmost[mover])
+			rearmost[mover] = toDistance;
+		else {
+			int distance = rearmost[mover];
+			while (distance > 0 && counts[distance] == 0)
+				distance--;
+			rearmost[mover] = distance;
+		}
+	}
+
+	/** Gets the distance of a player's rearmost piece
+	 *  @param player the player to score
+	 *  @return the number of walks between the player's rearmost piece and its target corner
+	 */
+	public int getCost(int player) {
+		return rearmost[player];
+	}
+
+	/** Gets the most one move can bring the rearmost piece in
+	 *  @return the length of the board
+	 */
+	public int getMaxGain() {
+		return MAX_DISTANCE;
+	}
+
+	/** Gets the furthest a piece can be from its target corner
+	 *  @return the length of the board
+	 */
+	public int getMaxCost() {
+		return MAX_DISTANCE;
+	}
+
+}
@@ -0,0 +1,105 @@
+import java.util.Arrays;
+
+/** The Transposition Table Class
+ *  A fixed-size table of search results keyed by Board's position hash. Each entry is packed into a long:
+ *  the score in bits 0-31, the best move (packed with Board.encodeMove) in bits 32-47, the depth searched in
+ *  bits 48-55 and the bound type in bits 56-57
+ */
+
+public class TranspositionTable {
+
+	public static final int EXACT = 1;
+	public static final int LOWER_BOUND = 2;
+	public static final int UPPER_BOUND = 3;
+
+	// Returned by probe when the position is not in the table
+	public static final long NOT_FOUND = 0;
+
+	public static final int DEFAULT_SIZE_BITS = 20;
+
+	private long[] keys;
+	private long[] entries;
+	private int mask;
+
+	/** Creates an empty table
+	 *  Precondition: sizeBits is between 1 and 30 inclusive
+	 *  Postcondition: a table with 2^sizeBits entries has been created
+	 *  @param sizeBits the base 2 logarithm of the number of entries
+	 */
+	public TranspositionTable(int sizeBits) {
+		keys = new long[1 << sizeBits];
+		entries = new long[1 << sizeBits];
+		mask = (1 << sizeBits) - 1;
+	}
+
+	/** Looks up a position
+	 *  @param key the hash of the position
+	 *  @return the packed entry of the position, or NOT_FOUND if it is not in the table
+	 */
+	public long probe(long key) {
+		int index = (int)key & mask;
+		if (keys[index] != key)
+			return NOT_FOUND;
+		return entries[index];
+	}
+
+	/** Stores the result of searching a position, replacing the entry in its slot unless that entry is for the
+	 *  same position and was searched deeper
+	 *  Precondition: depth is between 0 and 255, flag is EXACT, LOWER_BOUND or UPPER_BOUND, and move is a
+	 *  packed move or 0
+	 *  Postcondition: the result has been stored, unless a deeper result for the position is kept
+	 *  @param key the hash of the position
+	 *  @param depth the number of moves searched below the position
+	 *  @param score the score of the position
+	 *  @param flag whether the score is exact or a bound
+	 *  @param move the best move found in the position
+	 */
+	public void store(long key, int depth, int score, int flag, int move) {
+		int index = (int)key & mask;
+		if (keys[index] == key && entries[index] != NOT_FOUND && getDepth(entries[index]) > depth)
+			return;
+		keys[index] = key;
+		entries[index] = (score & 0xFFFFFFFFL) | (long)(move & 0xFFFF) << 32 | (long)depth << 48 | (long)flag << 56;
+	}
+
+	/** Empties the table
+	 *  Postcondition: every entry has been removed
+	 */
+	public void clear() {
+		Arrays.fill(keys, 0);
+		Arrays.fill(entries, NOT_FOUND);
+	}
+
+	/** Gets the score of a packed entry
+	 *  @param entry an entry returned by probe
+	 *  @return the score stored in the entry
+	 */
+	public static int getScore(long entry) {
+		return (int)entry;
+	}
+
+	/** Gets the best move of a packed entry
+	 *  @param entry an entry returned by probe
+	 *  @return the move stored in the entry, packed with Board.encodeMove
+	 */
+	public static int getMove(long entry) {
+		return (int)(entry >>> 32) & 0xFFFF;
+	}
+
+	/** Gets the depth of a packed entry
+	 *  @param entry an entry returned by probe
+	 *  @return the depth the entry's position was searched to
+	 */
+	public static int getDepth(long entry) {
+		return (int)(entry >>> 48) & 0xFF;
+	}
+
+	/** Gets the bound type of a packed entry
+	 *  @param entry an entry returned by probe
+	 *  @return EXACT, LOWER_BOUND or UPPER_BOUND
+	 */
+	public static int getFlag(long entry) {
+		return (int)(entry >>> 56) & 0x3;
+	}
+
+}
@@ -0,0 +1,251 @@
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/** The Tuner Class
+ *  Tunes the weights of WeightedEvaluator by SPSA (simultaneous perturbation stochastic approximation) over
+ *  headless self-play games. Each iteration moves every weight up or down by the same step, each in a random
+ *  direction, giving two sets of weights. It plays a batch of games between the two sets on every core and then
+ *  moves the weights towards the set that did better, by a step that shrinks as the tuning goes on. Every game is
+ *  played until each player has finished, and a set does better the fewer rounds its players take (a win or loss
+ *  alone is mostly decided by the seats and the opening). Each pair of games starts from the same random opening,
+ *  with the two sets swapping seats. The weights are written to
+ *  WeightedEvaluator.WEIGHTS_FILE after every iteration, so the tuner can be stopped at any time, and the client
+ *  reads them at startup
+ *  Usage: java Tuner [iterations] [games per iteration] [players] [depth] [threads]
+ */
+
+public class Tuner {
+
+	public static final int DEFAULT_ITERATIONS = 2000;
+	public static final int DEFAULT_GAMES = 16;
+	public static final String DEFAULT_PLAYERS = "1,4";
+	// Depth of the best-reply searches the players make (deeper plays better but far fewer games/sec)
+	public static final int DEFAULT_DEPTH = 1;
+	// Size of the transposition table of each player in each game: the searches are shallow, and a table of the
+	// default size (16 MB) for every player of every game would mostly be garbage collection work
+	private static final int TABLE_SIZE_BITS = 14;
+
+	// How far each weight is moved to make the two sets at the first iteration, and how far the weights are moved
+	// at the first iteration for each unit of result difference per unit of that step
+	private static final double PERTURBATION = 4.0;
+	private static final double LEARNING_RATE = 10.0;
+	// The usual SPSA decay: the step of iteration k shrinks as (k + 1 + STABILITY)^-STEP_DECAY and the
+	// perturbation as (k + 1)^-PERTURBATION_DECAY
+	private static final double STABILITY = 100;
+	private static final double STEP_DECAY = 0.602;
+	private static final double PERTURBATION_DECAY = 0.101;
+
+	// Rounds a game may last; a player that has not finished by then is counted as taking this many rounds plus
+	// the distance it has left
+	private static final int MAX_GAME_ROUNDS = 200;
+	// A difference of this many rounds in the average time the two sets take to finish counts as a result of 1
+	private static final double RESULT_ROUNDS = 10;
+	// Rounds of random forward moves each game starts with, so that games are not all the same
+	private static final int OPENING_ROUNDS = 3;
+	private static final long TUNING_SEED = 0x54756E65L;
+
+	/** A game between two sets of weights, with the plus set in the even seats of the turn order if isPlusEven
+	 *  and in the odd seats otherwise
+	 */
+	private static class Game implements Callable<Double> {
+
+		private int[] players;
+		private int depth;
+		private int[] plusWeights, minusWeights;
+		private boolean isPlusEven;
+		private long seed;
+
+		Game(int[] players, int depth, int[] plusWeights, int[] minusWeights, boolean isPlusEven, long seed) {
+			this.players = players;
+			this.depth = depth;
+			this.plusWeights = plusWeights;
+			this.minusWeights = minusWeights;
+			this.isPlusEven = isPlusEven;
+			this.seed = seed;
+		}
+
+		/** Plays the game until every player has finished
+		 *  @return the average number of rounds the minus set's players took to finish minus the average the plus
+		 *  set's took, divided by RESULT_ROUNDS
+		 *  @throws FileNotFoundException if BoardMap does not exist
+		 */
+		public Double call() throws FileNotFoundException {
+			Board board = Perft.loadPosition(players, null);
+			Random random = new Random(seed);
+			int[] moveList = new int[Board.MAX_MOVES];
+			SearchEngine[] engines = new SearchEngine[Board.NUM_PLAYERS + 1];
+			EndgameSolver[] endgames = new EndgameSolver[Board.NUM_PLAYERS + 1];
+			Algorithm[] algorithms = new Algorithm[Board.NUM_PLAYERS + 1];
+			boolean[] isPlus = new boolean[Board.NUM_PLAYERS + 1];
+			for (int i = 0; i < players.length; i++) {
+				int player = players[i];
+				isPlus[player] = (i % 2 == 0) == isPlusEven;
+				engines[player] = new SearchEngine(player, SearchEngine.BEST_REPLY, depth, 0, TABLE_SIZE_BITS);
+				engines[player].setEvaluator(new WeightedEvaluator(isPlus[player] ? plusWeights : minusWeights));
+				engines[player].setReporting(false);
+				endgames[player] = new EndgameSolver(player);
+				endgames[player].setReporting(false);
+				algorithms[player] = new Algorithm(player);
+			}
+
+			// Play as the client does: the endgame solver, then the search, then the greedy algorithm
+			int[] finished = new int[Board.NUM_PLAYERS + 1];
+			Arrays.fill(finished, MAX_GAME_ROUNDS);
+			int numFinished = 0;
+			for (int round = 0; round < MAX_GAME_ROUNDS && numFinished < players.length; round++) {
+				for (int player : players) {
+					if (finished[player] < MAX_GAME_ROUNDS)
+						continue;
+					board.setSideToMove(player);
+					int[] move = null;
+					if (round < OPENING_ROUNDS) {
+						int opening = OpeningBook.getRandomForwardMove(board, player, random, moveList);
+						if (opening != 0) {
+							int from = Board.getMoveFrom(opening), to = Board.getMoveTo(opening);
+							move = new int[] { Board.getRow(from), Board.getColumn(from), Board.getRow(to), Board.getColumn(to) };
+						}
+					}
+					if (move == null)
+						move = endgames[player].nextMove(board);
+					if (move == null)
+						move = engines[player].nextMove(board);
+					if (move == null || !board.isValidMove(move[0], move[1], move[2], move[3]))
+						move = algorithms[player].nextMove(board);
+					if (move == null)
+						continue;
+					board.move(move[0], move[1], move[2], move[3]);
+					if (OpeningBook.isFinished(board, player)) {
+						finished[player] = round + 1;
+						numFinished++;
+					}
+				}
+			}
+
+			double plusRounds = 0, minusRounds = 0;
+			int numPlus = 0;
+			for (int player : players) {
+				int rounds = finished[player];
+				if (rounds == MAX_GAME_ROUNDS)
+					for (int piece = 0; piece < board.getPieceCount(player); piece++)
+						rounds += Board.getTargetDistance(board.getPieceCell(player, piece), player);
+				if (isPlus[player]) {
+					plusRounds += rounds;
+					numPlus++;
+				}
+				else
+					minusRounds += rounds;
+			}
+			return (minusRounds / (players.length - numPlus) - plusRounds / numPlus) / RESULT_ROUNDS;
+		}
+	}
+
+	/** Tunes the weights, starting from the ones in the weights file (or the defaults)
+	 *  Precondition: players holds at least two valid player numbers, and iterations, games, depth and threads
+	 *  are >= 1
+	 *  Postcondition: the tuned weights have been written to WeightedEvaluator.WEIGHTS_FILE after every
+	 *  iteration, and the progress has been printed
+	 *  @param iterations the number of times to adjust the weights
+	 *  @param games the number of games to play at each iteration (rounded up to an even number, so each
+	 *  opening is played with the sets in both seats)
+	 *  @param players the players in turn order
+	 *  @param depth the number of moves each player's search looks ahead
+	 *  @param threads the number of games to play at once
+	 *  @return the tuned weights
+	 *  @throws IOException if BoardMap does not exist or the weights file cannot be written
+	 *  @throws InterruptedException if the thread is interrupted while waiting for the games
+	 */
+	public static int[] tune(int iterations, int games, int[] players, int depth, int threads)
+			throws IOException, InterruptedException {
+		int[] start = WeightedEvaluator.getStartupWeights();
+		double[] theta = new double[start.length];
+		for (int i = 0; i < theta.length; i++)
+			theta[i] = start[i];
+		int pairs = (games + 1) / 2;
+
+		Random random = new Random(TUNING_SEED);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		long tuningStart = System.nanoTime();
+		long gamesPlayed = 0;
+		int[] weights = round(theta);
+		try {
+			for (int k = 0; k < iterations; k++) {
+				double perturbation = PERTURBATION / Math.pow(k + 1, PERTURBATION_DECAY);
+				double step = LEARNING_RATE * Math.pow(STABILITY + 1, STEP_DECAY) / Math.pow(k + 1 + STABILITY, STEP_DECAY);
+				int[] delta = new int[theta.length];
+				double[] plus = new double[theta.length], minus = new double[theta.length];
+				for (int i = 0; i < theta.length; i++) {
+					delta[i] = random.nextBoolean() ? 1 : -1;
+					plus[i] = theta[i] + perturbation * delta[i];
+					minus[i] = theta[i] - perturbation * delta[i];
+				}
+				int[] plusWeights = round(plus), minusWeights = round(minus);
+
+				ArrayList<Future<Double>> results = new ArrayList<Future<Double>>();
+				for (int pair = 0; pair < pairs; pair++) {
+					long seed = random.nextLong();
+					results.add(executor.submit(new Game(players, depth, plusWeights, minusWeights, true, seed)));
+					results.add(executor.submit(new Game(players, depth, plusWeights, minusWeights, false, seed)));
+				}
+				double difference = 0;
+				for (Future<Double> result : results) {
+					try {
+						difference += result.get();
+					}
+					catch (ExecutionException e) {
+						throw new IllegalStateException("A tuning game failed", e.getCause());
+					}
+				}
+				difference /= results.size();
+				gamesPlayed += results.size();
+
+				// Move towards the set that did better, keeping every weight at least 0
+				for (int i = 0; i < theta.length; i++)
+					theta[i] = Math.max(0, theta[i] + step * difference / (2 * perturbation) * delta[i]);
+				weights = round(theta);
+				WeightedEvaluator.writeWeights(WeightedEvaluator.WEIGHTS_FILE, weights, "Tuned by Tuner: " + (k + 1) +
+						" iterations, " + gamesPlayed + " games of " + Arrays.toString(players) + " at depth " + depth);
+
+				double seconds = (System.nanoTime() - tuningStart) / 1e9;
+				System.out.println("Iteration " + (k + 1) + ": " + Arrays.toString(plusWeights) + " vs " +
+						Arrays.toString(minusWeights) + " scored " + String.format("%+.3f", difference) + ", weights " +
+						Arrays.toString(weights) + ", " + gamesPlayed + " games at " +
+						String.format("%.1f", gamesPlayed / seconds) + " games/sec");
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		return weights;
+	}
+
+	/** Rounds a set of weights to the nearest whole numbers of at least 0
+	 *  @param theta the weights
+	 *  @return the rounded weights
+	 */
+	private static int[] round(double[] theta) {
+		int[] weights = new int[theta.length];
+		for (int i = 0; i < theta.length; i++)
+			weights[i] = (int)Math.max(0, Math.round(theta[i]));
+		return weights;
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ITERATIONS;
+		int games = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_GAMES;
+		int[] players = Perft.parsePlayers(args.length > 2 ? args[2] : DEFAULT_PLAYERS);
+		int depth = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_DEPTH;
+		int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+		int[] weights = tune(iterations, games, players, depth, threads);
+		System.out.println("Tuned weights written to " + WeightedEvaluator.WEIGHTS_FILE + ": " + Arrays.toString(weights));
+	}
+
+}
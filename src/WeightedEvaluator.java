@@ -0,0 +1,226 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Scanner;
+
+/** The Weighted Evaluator Class
+ *  Scores each player by a weighted sum of the costs of several other evaluators, each of which measures one
+ *  feature of the position. Every part is kept up to date move by move, so the sum is too.
+ *  The weights file (written by Tuner) has one feature per line, "name weight"; blank lines and lines starting
+ *  with # are skipped, and features it leaves out keep their default weights
+ */
+
+public class WeightedEvaluator implements Evaluator {
+
+	public static final String WEIGHTS_FILE = "Weights";
+
+	// The features that can be weighed, and the weights used when there is no weights file
+	public static final String[] FEATURE_NAMES = { "distance", "straggler", "squared", "blocked", "ladder" };
+	public static final int[] DEFAULT_WEIGHTS = { 64, 16, 0, 0, 0 };
+
+	// The weights read from WEIGHTS_FILE (or DEFAULT_WEIGHTS) the first time they are needed
+	private static int[] startupWeights;
+
+	// The weight of every part, and the parts with a weight above 0 with their weights (the others are never
+	// updated, since they cannot change the sum)
+	private int[] weights;
+	private Evaluator[] parts;
+	private int[] partWeights;
+
+	/** Creates an evaluator that weighs the parts' costs
+	 *  Precondition: parts and weights have the same length, and every weight is >= 0
+	 *  @param parts the evaluators of the features
+	 *  @param weights the weight of each part's cost
+	 */
+	public WeightedEvaluator(Evaluator[] parts, int[] weights) {
+		this.weights = weights.clone();
+		int count = 0;
+		for (int weight : weights)
+			if (weight > 0)
+				count++;
+		this.parts = new Evaluator[count];
+		partWeights = new int[count];
+		count = 0;
+		for (int i = 0; i < parts.length; i++)
+			if (weights[i] > 0) {
+				this.parts[count] = parts[i];
+				partWeights[count++] = weights[i];
+			}
+	}
+
+	/** Creates an evaluator that weighs the features in FEATURE_NAMES
+	 *  Precondition: weights has one weight >= 0 for each feature
+	 *  @param weights the weight of each feature
+	 */
+	public WeightedEvaluator(int[] weights) {
+		this(new Evaluator[] { new DistanceEvaluator(), new StragglerEvaluator(), new SquaredDistanceEvaluator(),
+				new BlockedEvaluator(), new LadderEvaluator() }, weights);
+	}
+
+	/** Creates an evaluator that weighs the features in FEATURE_NAMES by the weights in WEIGHTS_FILE, or by
+	 *  DEFAULT_WEIGHTS if there is no weights file or it cannot be read
+	 */
+	public WeightedEvaluator() {
+		this(getStartupWeights());
+	}
+
+	/** Gets the weights in WEIGHTS_FILE, which is read (from the working directory, or from the classpath if it
+	 *  is not there) the first time this is called
+	 *  Postcondition: the first call has printed which weights are used and where they came from
+	 *  @return the weights, or DEFAULT_WEIGHTS if there is no weights file or it cannot be read
+	 */
+	public static synchronized int[] getStartupWeights() {
+		if (startupWeights == null) {
+			String source = new File(WEIGHTS_FILE).exists() ? WEIGHTS_FILE : WEIGHTS_FILE + " on the classpath";
+			try {
+				startupWeights = readWeights(WEIGHTS_FILE);
+			}
+			catch (FileNotFoundException e) {
+				source = "the defaults (no " + WEIGHTS_FILE + " file)";
+				startupWeights = DEFAULT_WEIGHTS;
+			}
+			catch (IllegalArgumentException e) {
+				// A bad weights file must not stop the client from playing
+				source = "the defaults (" + e.getMessage() + ")";
+				startupWeights = DEFAULT_WEIGHTS;
+			}
+			System.out.println("Weights " + Arrays.toString(startupWeights) + " from " + source);
+		}
+		return startupWeights.clone();
+	}
+
+	/** Reads the weights of the features from a file in the working directory, or from the classpath if it is
+	 *  not there
+	 *  Precondition: the file is in the format written by writeWeights
+	 *  @param fileName the weights file
+	 *  @return the weight of each feature in FEATURE_NAMES
+	 *  @throws FileNotFoundException if the file is neither in the working directory nor on the classpath
+	 *  @throws IllegalArgumentException if a line names a feature that does not exist, or gives it a weight that
+	 *  is missing, not a whole number or negative
+	 */
+	public static int[] readWeights(String fileName) throws FileNotFoundException {
+		int[] weights = DEFAULT_WEIGHTS.clone();
+		Scanner inFile = new Scanner(Board.openDataFile(fileName));
+		try {
+			while (inFile.hasNextLine()) {
+				String line = inFile.nextLine().trim();
+				if (line.isEmpty() || line.startsWith("#"))
+					continue;
+				String[] fields = line.split("\\s+");
+				int feature = 0;
+				while (feature < FEATURE_NAMES.length && !FEATURE_NAMES[feature].equals(fields[0]))
+					feature++;
+				int weight = -1;
+				try {
+					if (fields.length == 2)
+						weight = Integer.parseInt(fields[1]);
+				}
+				catch (NumberFormatException e) {
+					// Reported with the line below
+				}
+				if (feature == FEATURE_NAMES.length || weight < 0)
+					throw new IllegalArgumentException("Bad line in " + fileName + ": " + line);
+				weights[feature] = weight;
+			}
+		}
+		finally {
+			inFile.close();
+		}
+		return weights;
+	}
+
+	/** Writes the weights of the features to a file. They are written to a temporary file first, which then
+	 *  replaces the file, so that a write that is cut short never leaves a half-written weights file behind
+	 *  Precondition: weights has one weight >= 0 for each feature in FEATURE_NAMES
+	 *  Postcondition: the file has been written
+	 *  @param fileName the weights file
+	 *  @param weights the weight of each feature
+	 *  @param comment a line describing where the weights came from
+	 *  @throws IOException if the file cannot be written
+	 */
+	public static void writeWeights(String fileName, int[] weights, String comment) throws IOException {
+		File file = new File(fileName);
+		File tempFile = new File(fileName + ".tmp");
+		PrintWriter outFile = new PrintWriter(tempFile);
+		try {
+			outFile.println("# " + comment);
+			for (int feature = 0; feature < FEATURE_NAMES.length; feature++)
+				outFile.println(FEATURE_NAMES[feature] + " " + weights[feature]);
+		}
+		finally {
+			outFile.close();
+		}
+		if (outFile.checkError()) {
+			tempFile.delete();
+			throw new IOException("Could not write " + tempFile);
+		}
+		try {
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (AtomicMoveNotSupportedException e) {
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/** Scores every part from scratch
+	 *  @param board the position to score (it is not changed)
+	 */
+	public void reset(Board board) {
+		for (Evaluator part : parts)
+			part.reset(board);
+	}
+
+	/** Updates every part for one of a player's pieces moving
+	 *  @param mover the player whose piece moves
+	 *  @param from the cell the piece moves from
+	 *  @param to the cell the piece moves to
+	 */
+	public void movePiece(int mover, int from, int to) {
+		for (Evaluator part : parts)
+			part.movePiece(mover, from, to);
+	}
+
+	/** Gets the weighted sum of a player's costs
+	 *  @param player the player to score
+	 *  @return the sum of each part's cost times its weight
+	 */
+	public int getCost(int player) {
+		int cost = 0;
+		for (int i = 0; i < parts.length; i++)
+			cost += partWeights[i] * parts[i].getCost(player);
+		return cost;
+	}
+
+	/** Gets the most the weighted sum can drop in one move
+	 *  @return the sum of each part's largest drop times its weight
+	 */
+	public int getMaxGain() {
+		int gain = 0;
+		for (int i = 0; i < parts.length; i++)
+			gain += partWeights[i] * parts[i].getMaxGain();
+		return gain;
+	}
+
+	/** Gets the highest weighted sum a player can have
+	 *  @return the sum of each part's highest cost times its weight
+	 */
+	public int getMaxCost() {
+		int cost = 0;
+		for (int i = 0; i < parts.length; i++)
+			cost += partWeights[i] * parts[i].getMaxCost();
+		return cost;
+	}
+
+	/** Gets the weights of the parts
+	 *  @return a copy of the weights
+	 */
+	public int[] getWeights() {
+		return weights.clone();
+	}
+
+}